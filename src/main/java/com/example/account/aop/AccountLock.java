@@ -3,6 +3,8 @@ package com.example.account.aop;
  package com.example.account.aop
  : AOP 로 중복 거래 방지 락을 걸 때 사용될 어노테이션 등을 위치 시킨 패키지
 */
+import com.example.account.type.LockStrategy;
+
 import java.lang.annotation.*;
 
 @Target(ElementType.METHOD)
@@ -10,5 +12,21 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
-    long tryLockTime() default 5000L;
+    // 락 획득 대기 시간(ms)
+    long tryLockTime() default 1000L;
+
+    // 락 자동 해제 시간(ms), adaptiveLease 일 때는 상한값
+    long leaseTime() default 15000L;
+
+    // 실제 락 점유 시간 분포로 leaseTime 을 정하고, 대기열이 길면 바로 실패시킨다.
+    boolean adaptiveLease() default false;
+
+    // 경합이 적은 엔드포인트는 OPTIMISTIC 으로 Redis 왕복 없이 처리할 수 있다.
+    LockStrategy strategy() default LockStrategy.DISTRIBUTED;
+
+    // OPTIMISTIC 일 때 버전 충돌 재시도 횟수
+    int maxRetries() default 3;
+
+    // 샤드 계좌면 계좌 락을 잡지 않는다. (AccountShardRouter 가 샤드 락을 잡는다)
+    boolean shardAware() default false;
 }
@@ -0,0 +1,15 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * Idempotency-Key 헤더가 있는 요청은 같은 키로 다시 들어오면 처음 결과를 그대로 돌려준다.
+ * 락 AOP 보다 먼저 실행되므로 재시도 요청은 계좌 락을 다시 잡지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Idempotent {
+    String HEADER = "Idempotency-Key";
+}
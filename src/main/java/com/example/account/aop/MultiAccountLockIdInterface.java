@@ -0,0 +1,8 @@
+package com.example.account.aop;
+
+import java.util.List;
+
+// 여러 계좌를 한 번에 잠그는 요청 (계좌번호 순서로 잠가서 교착 상태를 막는다)
+public interface MultiAccountLockIdInterface {
+    List<String> getAccountNumbers();
+}
@@ -0,0 +1,29 @@
+package com.example.account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class AsyncTransactionConfig {
+    @Value("${account.transaction.async.pool-size:16}")
+    private int poolSize;
+
+    @Value("${account.transaction.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // 비동기 거래 API 에서 락 획득 후 DB 작업을 실행하는 스레드 풀
+    @Bean
+    public Executor transactionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transaction-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.account.config;
+
+import com.example.account.service.HotAccountSketch;
+import com.example.account.service.LockMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET /actuator/lockcontention?limit=20 : 경합이 심한 계좌 목록
+@Component
+@Endpoint(id = "lockcontention")
+@RequiredArgsConstructor
+public class LockContentionEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final LockMetrics lockMetrics;
+
+    @ReadOperation
+    public List<HotAccountSketch.HotAccount> hotAccounts(@Nullable Integer limit) {
+        return lockMetrics.getHotAccounts(limit == null ? DEFAULT_LIMIT : limit);
+    }
+}
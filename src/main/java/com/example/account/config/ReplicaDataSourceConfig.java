@@ -0,0 +1,66 @@
+package com.example.account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * account.datasource.replica.enabled=true 이면 spring.datasource 를 primary 로,
+ * account.datasource.replica.urls 를 replica 로 쓰는 라우팅 DataSource 를 만든다.
+ * (이 빈이 있으면 Spring Boot 의 기본 DataSource 는 만들어지지 않는다.)
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    @Value("${account.datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${account.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${account.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${account.datasource.replica.lag-query:}")
+    private String lagQuery;
+
+    @Value("${account.datasource.replica.max-lag:5s}")
+    private Duration maxLag;
+
+    @Value("${account.datasource.replica.check-interval:1s}")
+    private Duration checkInterval;
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.put("replica-" + i, DataSourceBuilder.create()
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls.get(i))
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build());
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, lagQuery, maxLag, checkInterval);
+    }
+
+    // 커넥션을 첫 쿼리 때 가져와야 readOnly 여부를 보고 replica 를 고를 수 있다.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
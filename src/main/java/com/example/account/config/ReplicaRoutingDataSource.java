@@ -0,0 +1,181 @@
+package com.example.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true)) 의 커넥션은 replica 에서,
+ * 나머지(쓰기 트랜잭션, 트랜잭션 밖의 호출) 는 primary 에서 가져온다.
+ * 트랜잭션 속성이 정해진 뒤에 커넥션을 고르도록 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ *
+ * replica 마다 주기적으로 지연 시간(lagQuery) 을 확인해서 maxLag 를 넘거나 응답이 없는 replica 는
+ * 빼고, 쓸 수 있는 replica 가 없으면 읽기도 primary 로 보낸다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    // 지연이 maxLag 이하인 replica 이름 (checkReplicas 가 통째로 바꾼다)
+    private volatile List<String> availableReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        checkReplicas();
+        long intervalMillis = checkInterval.toMillis();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        lagChecker.shutdown();
+        closeQuietly(primary);
+        replicas.values().forEach(ReplicaRoutingDataSource::closeQuietly);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String replica = selectReplica();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(replica).getConnection();
+        } catch (SQLException e) {
+            log.warn("Replica {} is unavailable, falling back to primary", replica, e);
+            markUnavailable(replica);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        String replica = selectReplica();
+        if (replica == null) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return replicas.get(replica).getConnection(username, password);
+        } catch (SQLException e) {
+            log.warn("Replica {} is unavailable, falling back to primary", replica, e);
+            markUnavailable(replica);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    public List<String> getAvailableReplicas() {
+        return availableReplicas;
+    }
+
+    // 읽기 전용 트랜잭션이 아니거나 쓸 수 있는 replica 가 없으면 null (primary)
+    private String selectReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        List<String> available = availableReplicas;
+        if (available.isEmpty()) {
+            return null;
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    void checkReplicas() {
+        List<String> available = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try {
+                Duration lag = measureLag(replica.getValue());
+                if (lag.compareTo(maxLag) <= 0) {
+                    available.add(replica.getKey());
+                } else {
+                    log.warn("Replica {} lags {} behind primary (max {}), reading from primary",
+                            replica.getKey(), lag, maxLag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Replica {} health check failed, reading from primary",
+                        replica.getKey(), e);
+            }
+        }
+        availableReplicas = List.copyOf(available);
+    }
+
+    /**
+     * lagQuery 는 primary 보다 몇 초 뒤쳐져 있는지를 숫자 하나로 돌려줘야 한다.
+     * (MySQL 이면 Seconds_Behind_Source 를 돌려주는 쿼리 등)
+     * 값이 없으면 복제가 멈춘 것으로 보고, lagQuery 가 설정되지 않았으면 연결만 확인한다.
+     */
+    private Duration measureLag(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection()) {
+            if (!StringUtils.hasText(lagQuery)) {
+                if (!connection.isValid(1)) {
+                    throw new SQLException("Replica connection is not valid");
+                }
+                return Duration.ZERO;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (!resultSet.next()) {
+                    throw new SQLException("Replica lag query returned no rows");
+                }
+                double lagSeconds = resultSet.getDouble(1);
+                if (resultSet.wasNull()) {
+                    throw new SQLException("Replica lag is unknown");
+                }
+                return Duration.ofMillis((long) (lagSeconds * 1000));
+            }
+        }
+    }
+
+    private void markUnavailable(String replica) {
+        List<String> available = new ArrayList<>(availableReplicas);
+        if (available.remove(replica)) {
+            availableReplicas = List.copyOf(available);
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                log.warn("Failed to close datasource", e);
+            }
+        }
+    }
+}
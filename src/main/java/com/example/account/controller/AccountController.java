@@ -3,17 +3,20 @@ package com.example.account.controller;
  package com.example.account.controller
  : API 의 endpoint 를 등록하고, 요청/응답의 형식을 갖는 클래스 패키지
 */
-import com.example.account.domain.Account;
+import com.example.account.aop.AccountLock;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.LookupAccount;
+import com.example.account.dto.ShardAccount;
 import com.example.account.service.AccountService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -48,24 +51,51 @@ public class AccountController {
         );
     }
 
+    // 거래가 몰리는 계좌의 잔액을 샤드로 나눠서 샤드별 락으로 처리하게 한다.
+    @PostMapping("/account/shard")
+    @AccountLock
+    public ShardAccount.Response shardAccount(
+            @RequestBody @Valid ShardAccount.Request request
+    ) {
+        return ShardAccount.Response.from(
+                accountService.shardAccount(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getShardCount())
+        );
+    }
+
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId
     ) {
-        return accountService.getAccountByUserId(userId)
-                .stream().map(accountDto -> AccountInfo.builder()
-                        .AccountNumber(accountDto.getAccountNumber())
-                        .balance(accountDto.getBalance())
-                        .build())
-                .collect(Collectors.toList());
+        return accountService.getAccountByUserId(userId);
+    }
 
+    // 여러 사용자의 계좌 목록 (user_ids=1,2,3), 응답은 사용자 id -> 계좌 목록
+    @GetMapping(value = "/account", params = "user_ids")
+    public Map<Long, List<AccountInfo>> getAccountsByUserIds(
+            @RequestParam("user_ids") List<Long> userIds
+    ) {
+        return accountService.getAccountsByUserIds(userIds);
     }
 
 
     @GetMapping("/account/{id}")
-    public Account getAccount(
+    public AccountDetail getAccount(
             @PathVariable Long id) {
         return accountService.getAccount(id);
     }
 
+    // 여러 계좌를 id 또는 계좌번호로 한 번에 조회 (각 최대 100개)
+    @PostMapping("/account/lookup")
+    public LookupAccount.Response lookupAccounts(
+            @RequestBody @Valid LookupAccount.Request request
+    ) {
+        return new LookupAccount.Response(
+                accountService.lookupAccounts(
+                        request.getIds(),
+                        request.getAccountNumbers()));
+    }
+
 }
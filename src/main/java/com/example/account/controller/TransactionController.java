@@ -1,31 +1,70 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.Idempotent;
+import com.example.account.domain.TransactionIds;
+import com.example.account.dto.AuthorizeBalance;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.SettleBalanceHold;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.service.AccountShardRouter;
+import com.example.account.service.AsyncTransactionService;
+import com.example.account.service.TransactionCache;
+import com.example.account.service.TransactionExportService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ExportFormat;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.account.type.ErrorCode.TRANSACTION_NOT_FOUND;
 
 @RestController
 @Slf4j
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final AsyncTransactionService asyncTransactionService;
+    private final AccountShardRouter accountShardRouter;
+    private final TransactionExportService transactionExportService;
+    private final TransactionCache transactionCache;
+
+    // 내보내기는 spring.mvc.async.request-timeout 보다 오래 걸릴 수 있어서 따로 둔다.
+    @Value("${account.export.timeout:30m}")
+    private Duration exportTimeout = Duration.ofMinutes(30);
 
 
     @PostMapping("/transaction/use")
-    @AccountLock
+    @Idempotent
+    @AccountLock(adaptiveLease = true, shardAware = true)
     public UseBalance.Response useBalance(
             @Valid @RequestBody UseBalance.Request request
-    ) throws InterruptedException {
+    ) {
         try {
-            Thread.sleep(3000L);
+            // 샤드 계좌는 계좌 락 없이 샤드 하나만 잠그고 처리한다.
+            if (accountShardRouter.isSharded(request.getAccountNumber())) {
+                return UseBalance.Response.from(
+                        accountShardRouter.useBalance(request.getUserId(),
+                                request.getAccountNumber(), request.getAmount()));
+            }
             return UseBalance.Response.from(
                     transactionService.useBalance(request.getUserId(),
                             request.getAccountNumber(), request.getAmount()));
@@ -41,12 +80,53 @@ public class TransactionController {
         }
     }
 
+    // 정산 등 여러 계좌의 잔액 사용을 한 번의 락/트랜잭션으로 처리
+    @PostMapping("/transaction/use/batch")
+    @AccountLock(tryLockTime = 5000L)
+    public UseBalanceBatch.Response useBalanceBatch(
+            @Valid @RequestBody UseBalanceBatch.Request request
+    ) {
+        return UseBalanceBatch.Response.from(
+                transactionService.useBalanceBatch(request.getItems()));
+    }
+
+    // 두 계좌를 계좌번호 순서로 잠그고 출금/입금을 한 트랜잭션으로 처리
+    @PostMapping("/transaction/transfer")
+    @Idempotent
+    @AccountLock(adaptiveLease = true)
+    public TransferBalance.Response transferBalance(
+            @Valid @RequestBody TransferBalance.Request request
+    ) {
+        try {
+            return TransferBalance.Response.from(
+                    transactionService.transferBalance(request.getUserId(),
+                            request.getFromAccountNumber(),
+                            request.getToAccountNumber(),
+                            request.getAmount()));
+        } catch (AccountException e) {
+            log.error("Failed to transfer balance.");
+
+            transactionService.saveFailedTransferTransaction(
+                    request.getFromAccountNumber(),
+                    request.getAmount()
+            );
+
+            throw e;
+        }
+    }
+
     @PostMapping("/transaction/cancel")
-    @AccountLock
+    @Idempotent
+    @AccountLock(adaptiveLease = true, shardAware = true)
     public CancelBalance.Response cancelBalance(
             @Valid @RequestBody CancelBalance.Request request
     ) {
         try {
+            if (accountShardRouter.isSharded(request.getAccountNumber())) {
+                return CancelBalance.Response.from(
+                        accountShardRouter.cancelBalance(request.getTransactionId(),
+                                request.getAccountNumber(), request.getAmount()));
+            }
             return CancelBalance.Response.from(
                     transactionService.cancelBalance(request.getTransactionId(),
                             request.getAccountNumber(), request.getAmount()));
@@ -62,10 +142,120 @@ public class TransactionController {
         }
     }
 
+    /**
+     * 승인 : 잔액을 묶어두는 짧은 작업만 락을 잡는다.
+     * 외부 작업이 끝나면 capture(매입) 또는 void(취소) 하고, 둘 다 없으면 만료 시 자동으로 풀린다.
+     */
+    @PostMapping("/transaction/authorize")
+    @Idempotent
+    @AccountLock(adaptiveLease = true)
+    public AuthorizeBalance.Response authorizeBalance(
+            @Valid @RequestBody AuthorizeBalance.Request request
+    ) {
+        return AuthorizeBalance.Response.from(
+                transactionService.authorizeBalance(request.getUserId(),
+                        request.getAccountNumber(), request.getAmount()));
+    }
+
+    // 잔액은 승인 때 이미 빠졌으므로 계좌 락을 잡지 않는다.
+    @PostMapping("/transaction/capture")
+    @Idempotent
+    public SettleBalanceHold.Response captureBalance(
+            @Valid @RequestBody SettleBalanceHold.Request request
+    ) {
+        return SettleBalanceHold.Response.from(
+                transactionService.captureBalance(request.getHoldId(),
+                        request.getAccountNumber()));
+    }
+
+    @PostMapping("/transaction/void")
+    @Idempotent
+    @AccountLock(adaptiveLease = true)
+    public SettleBalanceHold.Response voidBalance(
+            @Valid @RequestBody SettleBalanceHold.Request request
+    ) {
+        return SettleBalanceHold.Response.from(
+                transactionService.voidBalance(request.getHoldId(),
+                        request.getAccountNumber()));
+    }
+
+    // 락 대기 중에 서블릿 스레드를 반납하는 비동기 버전
+    @PostMapping("/transaction/use/async")
+    public CompletableFuture<UseBalance.Response> useBalanceAsync(
+            @Valid @RequestBody UseBalance.Request request
+    ) {
+        return asyncTransactionService.useBalance(request.getUserId(),
+                        request.getAccountNumber(), request.getAmount())
+                .thenApply(UseBalance.Response::from);
+    }
+
+    @PostMapping("/transaction/cancel/async")
+    public CompletableFuture<CancelBalance.Response> cancelBalanceAsync(
+            @Valid @RequestBody CancelBalance.Request request
+    ) {
+        return asyncTransactionService.cancelBalance(request.getTransactionId(),
+                        request.getAccountNumber(), request.getAmount())
+                .thenApply(CancelBalance.Response::from);
+    }
+
+    // 계좌의 거래 내역 (최신 순, 응답의 nextCursor 로 다음 페이지 조회)
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return transactionService.getTransactionHistory(accountNumber, cursor, size);
+    }
+
+    /**
+     * 계좌의 거래 내역 전체(또는 [from, to) 구간) 를 NDJSON/CSV 로 스트리밍한다.
+     * 응답은 MVC 비동기 스레드에서 DB 커서를 읽으면서 바로 쓴다.
+     */
+    @GetMapping("/account/{accountNumber}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletRequest httpServletRequest) {
+        Long accountId = transactionExportService.getAccountId(accountNumber);
+
+        StreamingResponseBody body = outputStream -> {
+            if (httpServletRequest.isAsyncStarted()) {
+                httpServletRequest.getAsyncContext().setTimeout(exportTimeout.toMillis());
+            }
+            transactionExportService.export(accountId, from, to, format, outputStream);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + accountNumber + "-transactions." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * 거래는 저장된 뒤 바뀌지 않으므로 캐시(TransactionCache) 에서 먼저 찾고,
+     * If-None-Match 가 같은 거래의 ETag 이면 본문 없이 304 를 돌려준다.
+     * 없는 거래는 If-None-Match 와 상관없이 TRANSACTION_NOT_FOUND 이므로 비교 전에 거래를 찾는다.
+     */
     @GetMapping("/transaction/{transactionId}")
-    public QueryTransactionResponse queryTransactionResponse(
-            @PathVariable String transactionId) {
-        return QueryTransactionResponse.from(
-                transactionService.queryTransaction(transactionId));
+    public ResponseEntity<QueryTransactionResponse> queryTransactionResponse(
+            @PathVariable String transactionId, WebRequest webRequest) {
+        // 소문자로 들어온 id 도 같은 캐시 항목, 같은 ETag 를 쓰도록 표준 형식으로 바꾼다.
+        String canonicalId = TransactionIds.parse(transactionId)
+                .map(TransactionIds::format)
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+        QueryTransactionResponse response = transactionCache.getTransaction(canonicalId,
+                id -> QueryTransactionResponse.from(transactionService.queryTransaction(id)));
+
+        String eTag = TransactionCache.getETag(canonicalId);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(response);
     }
 }
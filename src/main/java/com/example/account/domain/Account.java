@@ -8,10 +8,13 @@ import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.*;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Getter
@@ -22,8 +25,10 @@ import java.time.LocalDateTime;
 @Entity
 public class Account extends BaseEntity{
 
-    @ManyToOne
+    // 소유자 확인은 id 만 보면 되므로 계좌를 읽을 때 사용자까지 조회하지 않는다.
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
+    @Column(unique = true)
     private String accountNumber;
 
     @Enumerated(EnumType.STRING)
@@ -33,6 +38,18 @@ public class Account extends BaseEntity{
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    // 낙관적 락(LockStrategy.OPTIMISTIC) 에서 동시 수정을 감지하는 버전
+    @Version
+    private Long version;
+
+    // 2 이상이면 잔액을 AccountShard 에 나눠 담는 샤드 계좌 (AccountShardRouter)
+    // 샤드 계좌의 balance 는 계좌 락으로 들어온 입금 등이 잠시 머무는 곳이고, 재분배 때 샤드로 옮겨진다.
+    private Integer shardCount;
+
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 1;
+    }
+
     public void useBalance(Long amount){
         if (amount > balance) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
@@ -40,6 +57,13 @@ public class Account extends BaseEntity{
         balance -= amount;
     }
 
+    public void depositBalance(Long amount){
+        if (amount < 0) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        balance = balance + amount;
+    }
+
     public void cancelBalance(Long amount){
         if (amount < 0) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
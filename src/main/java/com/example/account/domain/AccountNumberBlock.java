@@ -0,0 +1,19 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+
+/**
+ * 계좌번호 발급용으로 예약된 번호 블록
+ * 시퀀스로 받은 id 가 블록 번호가 되므로 노드끼리 같은 블록을 받지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class AccountNumberBlock extends BaseEntity {
+    private Integer blockSize;
+}
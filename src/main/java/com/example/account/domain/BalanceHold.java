@@ -0,0 +1,43 @@
+package com.example.account.domain;
+
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToOne;
+import java.time.LocalDateTime;
+
+/**
+ * 승인(authorize) 으로 묶어둔 잔액
+ * 승인 시점에 계좌 잔액(사용 가능 잔액) 에서 빼두고, 매입(capture) 하면 사용 거래로 남기고,
+ * 취소(void) 하거나 만료되면 잔액을 되돌린다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class BalanceHold extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+    private Long amount;
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus holdStatus;
+
+    // 외부에는 getHoldId() 의 문자열로 노출 (TransactionIdGenerator 로 발급)
+    @Column(unique = true, nullable = false)
+    private Long holdKey;
+
+    private LocalDateTime expiresAt;
+    private LocalDateTime settledAt;
+
+    public String getHoldId() {
+        return holdKey == null ? null : TransactionIds.format(holdKey);
+    }
+}
@@ -4,10 +4,13 @@ import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.*;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 @Getter
@@ -16,6 +19,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+// 계좌별 거래 내역을 (거래 시각, id) 로 이어서 읽는 keyset 페이지 조회용
+@Table(indexes = @Index(name = "idx_transaction_account_transacted_at",
+        columnList = "account_id, transacted_at, id"))
 public class Transaction extends BaseEntity{
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType;
@@ -27,6 +33,15 @@ public class Transaction extends BaseEntity{
     private Long amount;
     private Long balanceSnapshot;
 
-    private String transactionId;
+    // 시간순 거래 id (TransactionIdGenerator), 외부에는 getTransactionId() 의 문자열로 노출
+    @Column(unique = true, nullable = false)
+    private Long transactionKey;
     private LocalDateTime transactedAt;
+
+    // 이체 거래에서 짝이 되는 상대 거래의 transactionKey (출금 <-> 입금)
+    private Long pairedTransactionKey;
+
+    public String getTransactionId() {
+        return transactionKey == null ? null : TransactionIds.format(transactionKey);
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.account.domain;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * 64bit 거래 id 와 외부에 보여주는 문자열 id 사이의 변환
+ * Crockford base32 13자리 고정 길이라서 문자열 정렬 순서가 id 순서(= 시간 순서)와 같다.
+ */
+public final class TransactionIds {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+    }
+
+    private TransactionIds() {
+    }
+
+    public static String format(long id) {
+        char[] chars = new char[LENGTH];
+        // 첫 글자는 상위 4bit, 나머지 12글자가 5bit 씩
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 0x1F)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    // 형식이 맞지 않는 id(예전 UUID 형식 등)는 empty
+    public static Optional<Long> parse(String transactionId) {
+        if (transactionId == null || transactionId.length() != LENGTH) {
+            return Optional.empty();
+        }
+        long id = 0L;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = transactionId.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0 || (i == 0 && value > 0xF)) {
+                return Optional.empty();
+            }
+            id = (id << 5) | value;
+        }
+        return Optional.of(id);
+    }
+}
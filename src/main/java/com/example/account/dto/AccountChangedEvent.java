@@ -0,0 +1,17 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountChangedEvent implements Serializable {
+    // 계좌 생성/해지 등 계좌 메타데이터가 바뀌었을 때 발행하는 이벤트
+    private String accountNumber;
+    // 변경 직전의 Account.version. 이 버전 이하로 캐시된 항목만 지운다.
+    private Long version;
+}
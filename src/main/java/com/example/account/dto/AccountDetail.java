@@ -0,0 +1,26 @@
+package com.example.account.dto;
+
+import com.example.account.type.AccountStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 계좌 단건/일괄 조회 응답
+ * 쿼리에서 생성자로 바로 만들어서 Account/AccountUser 엔티티를 직렬화하지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountDetail {
+    private Long id;
+    private Long userId;
+    private String accountNumber;
+    private AccountStatus accountStatus;
+    // 샤드 계좌는 샤드 잔액 포함
+    private Long balance;
+    private LocalDateTime registeredAt;
+    private LocalDateTime unRegisteredAt;
+}
@@ -19,7 +19,9 @@ public class AccountDto {
     // 컨트롤러와 서비스간 응답을 주고받음
     private Long userId;
     private String accountNumber;
+    // 샤드 계좌는 계좌 balance + 모든 샤드 balance
     private Long balance;
+    private Integer shardCount;
 
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
@@ -30,6 +32,7 @@ public class AccountDto {
                 .userId(account.getAccountUser().getId())
                 .accountNumber(account.getAccountNumber())
                 .balance(account.getBalance())
+                .shardCount(account.getShardCount())
                 .registeredAt(account.getRegisteredAt())
                 .unRegisteredAt(account.getUnRegisteredAt())
                 .build();
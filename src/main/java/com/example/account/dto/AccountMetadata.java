@@ -0,0 +1,35 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountMetadata {
+    // 계좌번호로 계좌를 찾을 때 쓰는 캐시 항목 (잔액은 담지 않는다)
+    private Long id;
+    private String accountNumber;
+    private Long ownerId;
+    private AccountStatus accountStatus;
+    private Long version;
+    private Integer shardCount;
+
+    public static AccountMetadata fromEntity(Account account) {
+        return AccountMetadata.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .ownerId(account.getAccountUser().getId())
+                .accountStatus(account.getAccountStatus())
+                .version(account.getVersion())
+                .shardCount(account.getShardCount())
+                .build();
+    }
+
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 1;
+    }
+}
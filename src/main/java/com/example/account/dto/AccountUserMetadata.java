@@ -0,0 +1,21 @@
+package com.example.account.dto;
+
+import com.example.account.domain.AccountUser;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountUserMetadata {
+    private Long id;
+    private String name;
+
+    public static AccountUserMetadata fromEntity(AccountUser accountUser) {
+        return AccountUserMetadata.builder()
+                .id(accountUser.getId())
+                .name(accountUser.getName())
+                .build();
+    }
+}
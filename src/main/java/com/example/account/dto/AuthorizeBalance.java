@@ -0,0 +1,52 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+public class AuthorizeBalance {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private HoldStatus holdStatus;
+        private Long amount;
+        private LocalDateTime expiresAt;
+
+        public static Response from(BalanceHoldDto balanceHoldDto) {
+            return Response.builder()
+                    .accountNumber(balanceHoldDto.getAccountNumber())
+                    .holdId(balanceHoldDto.getHoldId())
+                    .holdStatus(balanceHoldDto.getHoldStatus())
+                    .amount(balanceHoldDto.getAmount())
+                    .expiresAt(balanceHoldDto.getExpiresAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceHoldCreatedEvent {
+    // 승인 커밋 후 만료 타이머를 등록할 때 사용
+    private String holdId;
+    private String accountNumber;
+    private LocalDateTime expiresAt;
+}
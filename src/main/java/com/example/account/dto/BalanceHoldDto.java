@@ -0,0 +1,34 @@
+package com.example.account.dto;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceHoldDto {
+    private String accountNumber;
+    private String holdId;
+    private Long amount;
+    private HoldStatus holdStatus;
+    private LocalDateTime expiresAt;
+    private LocalDateTime settledAt;
+    // 매입된 경우 사용 거래 id
+    private String transactionId;
+
+    public static BalanceHoldDto fromEntity(BalanceHold balanceHold) {
+        return BalanceHoldDto.builder()
+                .accountNumber(balanceHold.getAccount().getAccountNumber())
+                .holdId(balanceHold.getHoldId())
+                .amount(balanceHold.getAmount())
+                .holdStatus(balanceHold.getHoldStatus())
+                .expiresAt(balanceHold.getExpiresAt())
+                .settledAt(balanceHold.getSettledAt())
+                .build();
+    }
+}
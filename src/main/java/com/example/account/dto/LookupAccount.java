@@ -0,0 +1,32 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class LookupAccount {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @Size(max = 100)
+        private List<@NotNull Long> ids = List.of();
+
+        @Size(max = 100)
+        private List<@NotNull String> accountNumbers = List.of();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        // 찾은 계좌만 (ids 순서, 그 다음 accountNumbers 순서)
+        private List<AccountDetail> accounts;
+    }
+}
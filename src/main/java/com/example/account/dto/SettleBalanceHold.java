@@ -0,0 +1,51 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+
+// 승인 건의 매입(capture) / 취소(void)
+public class SettleBalanceHold {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotBlank
+        private String holdId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private HoldStatus holdStatus;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime settledAt;
+
+        public static Response from(BalanceHoldDto balanceHoldDto) {
+            return Response.builder()
+                    .accountNumber(balanceHoldDto.getAccountNumber())
+                    .holdId(balanceHoldDto.getHoldId())
+                    .holdStatus(balanceHoldDto.getHoldStatus())
+                    .transactionId(balanceHoldDto.getTransactionId())
+                    .amount(balanceHoldDto.getAmount())
+                    .settledAt(balanceHoldDto.getSettledAt())
+                    .build();
+        }
+    }
+}
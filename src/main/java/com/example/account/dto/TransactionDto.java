@@ -1,6 +1,7 @@
 package com.example.account.dto;
 
 import com.example.account.domain.Transaction;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.*;
@@ -20,6 +21,8 @@ public class TransactionDto {
     private Long balanceSnapshot;
     private String transactionId;
     private LocalDateTime transactedAt;
+    // 일괄 처리에서 실패한 항목의 사유
+    private ErrorCode errorCode;
 
     public static TransactionDto fromEntity(Transaction transaction){
         return TransactionDto.builder()
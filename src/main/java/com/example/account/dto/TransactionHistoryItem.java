@@ -0,0 +1,47 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIds;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 내역 한 줄
+ * 조회 쿼리에서 생성자로 바로 만들어서 Transaction/Account 엔티티를 올리지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryItem {
+    // 다음 페이지 커서를 만들 때만 쓴다.
+    @JsonIgnore
+    private Long id;
+    private String transactionId;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResult;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    public TransactionHistoryItem(Long id, Long transactionKey,
+                                  TransactionType transactionType,
+                                  TransactionResultType transactionResult,
+                                  Long amount, Long balanceSnapshot,
+                                  LocalDateTime transactedAt) {
+        this(id, transactionKey == null ? null : TransactionIds.format(transactionKey),
+                transactionType, transactionResult, amount, balanceSnapshot, transactedAt);
+    }
+
+    public static TransactionHistoryItem fromEntity(Transaction transaction) {
+        return new TransactionHistoryItem(transaction.getId(), transaction.getTransactionKey(),
+                transaction.getTransactionType(), transaction.getTransactionResultType(),
+                transaction.getAmount(), transaction.getBalanceSnapshot(),
+                transaction.getTransactedAt());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionSavedEvent {
+    // 거래를 저장했을 때 발행하는 이벤트. 커밋된 뒤에 조회 응답 캐시(TransactionCache) 에 넣는다.
+    private QueryTransactionResponse transaction;
+}
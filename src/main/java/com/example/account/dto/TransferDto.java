@@ -0,0 +1,15 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferDto {
+    // 출금 계좌의 거래
+    private TransactionDto withdrawal;
+    // 입금 계좌의 거래
+    private TransactionDto deposit;
+}
@@ -0,0 +1,15 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserAccountInfo {
+    // 여러 사용자의 계좌를 한 번에 조회할 때 사용자별로 묶기 위한 projection
+    private Long userId;
+    private String accountNumber;
+    private Long balance;
+}
@@ -5,9 +5,15 @@ package com.example.account.repository;
 */
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDetail;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.UserAccountInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,5 +26,46 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByAccountNumber(String AccountNumber);
 
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    // 사용 중인 계좌의 번호, 잔액(샤드 잔액 포함) 만 읽는다.
+    @Query("select new com.example.account.dto.AccountInfo(" +
+            "a.accountNumber, a.balance + coalesce(sum(s.balance), 0L)) " +
+            "from Account a left join AccountShard s on s.account = a " +
+            "where a.accountUser.id = :userId " +
+            "and a.accountStatus = com.example.account.type.AccountStatus.IN_USE " +
+            "group by a.id, a.accountNumber, a.balance order by a.id")
+    List<AccountInfo> findAccountInfoByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.account.dto.UserAccountInfo(" +
+            "a.accountUser.id, a.accountNumber, a.balance + coalesce(sum(s.balance), 0L)) " +
+            "from Account a left join AccountShard s on s.account = a " +
+            "where a.accountUser.id in :userIds " +
+            "and a.accountStatus = com.example.account.type.AccountStatus.IN_USE " +
+            "group by a.accountUser.id, a.id, a.accountNumber, a.balance order by a.id")
+    List<UserAccountInfo> findAccountInfoByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // 주기적으로 재분배할 샤드 계좌
+    List<Account> findByShardCountGreaterThan(Integer shardCount);
+
+    String ACCOUNT_DETAIL_SELECT = "select new com.example.account.dto.AccountDetail(" +
+            "a.id, a.accountUser.id, a.accountNumber, a.accountStatus, " +
+            "a.balance + coalesce(sum(s.balance), 0L), a.registeredAt, a.unRegisteredAt) " +
+            "from Account a left join AccountShard s on s.account = a ";
+    String ACCOUNT_DETAIL_GROUP_BY = " group by a.id, a.accountUser.id, a.accountNumber, " +
+            "a.accountStatus, a.balance, a.registeredAt, a.unRegisteredAt";
+
+    // 계좌 조회 응답용 projection (엔티티를 올리지 않는다)
+    @Query(ACCOUNT_DETAIL_SELECT + "where a.id = :id" + ACCOUNT_DETAIL_GROUP_BY)
+    Optional<AccountDetail> findAccountDetailById(@Param("id") Long id);
+
+    @Query(ACCOUNT_DETAIL_SELECT + "where a.id in :ids" + ACCOUNT_DETAIL_GROUP_BY)
+    List<AccountDetail> findAccountDetailByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(ACCOUNT_DETAIL_SELECT + "where a.accountNumber in :accountNumbers"
+            + ACCOUNT_DETAIL_GROUP_BY)
+    List<AccountDetail> findAccountDetailByAccountNumberIn(
+            @Param("accountNumbers") Collection<String> accountNumbers);
 }
@@ -0,0 +1,25 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountShardRepository extends JpaRepository<AccountShard, Long> {
+    Optional<AccountShard> findByAccountIdAndShardIndex(Long accountId, Integer shardIndex);
+
+    List<AccountShard> findByAccountIdOrderByShardIndex(Long accountId);
+
+    // 샤드 선택용으로 락 없이 읽는 잔액 (index 순서)
+    @Query("select s.balance from AccountShard s " +
+            "where s.account.accountNumber = :accountNumber order by s.shardIndex")
+    List<Long> findBalancesByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountShard s where s.account.id = :accountId")
+    Long sumBalanceByAccountId(@Param("accountId") Long accountId);
+}
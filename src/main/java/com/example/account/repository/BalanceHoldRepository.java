@@ -0,0 +1,34 @@
+package com.example.account.repository;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.domain.TransactionIds;
+import com.example.account.type.HoldStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceHoldRepository extends JpaRepository<BalanceHold, Long> {
+    Optional<BalanceHold> findByHoldKey(Long holdKey);
+
+    default Optional<BalanceHold> findByHoldId(String holdId) {
+        return TransactionIds.parse(holdId)
+                .flatMap(this::findByHoldKey);
+    }
+
+    List<BalanceHold> findByHoldStatus(HoldStatus holdStatus);
+
+    // HELD 상태일 때만 바꾼다. 매입/취소/만료가 동시에 일어나도 하나만 성공한다.
+    @Modifying
+    @Query("update BalanceHold h set h.holdStatus = :to, h.settledAt = :settledAt " +
+            "where h.id = :id and h.holdStatus = com.example.account.type.HoldStatus.HELD")
+    int settle(@Param("id") Long id,
+               @Param("to") HoldStatus to,
+               @Param("settledAt") LocalDateTime settledAt);
+}
@@ -1,12 +1,67 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIds;
+import com.example.account.dto.TransactionHistoryItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    Optional<Transaction> findByTransactionId(String transactionId);
+    Optional<Transaction> findByTransactionKey(Long transactionKey);
+
+    // 외부 문자열 id 를 long 키로 바꿔서 unique 인덱스로 조회
+    default Optional<Transaction> findByTransactionId(String transactionId) {
+        return TransactionIds.parse(transactionId)
+                .flatMap(this::findByTransactionKey);
+    }
+
+    // 거래 내역 첫 페이지 : (account_id, transacted_at, id) 인덱스를 역순으로 읽는다.
+    @Query("select new com.example.account.dto.TransactionHistoryItem(" +
+            "t.id, t.transactionKey, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.transactedAt) " +
+            "from Transaction t where t.account.id = :accountId " +
+            "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findHistory(@Param("accountId") Long accountId,
+                                             Pageable pageable);
+
+    // 다음 페이지 : 커서 위치보다 오래된 거래부터 (offset 없이 인덱스에서 바로 찾아간다)
+    @Query("select new com.example.account.dto.TransactionHistoryItem(" +
+            "t.id, t.transactionKey, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.transactedAt) " +
+            "from Transaction t where t.account.id = :accountId " +
+            "and (t.transactedAt < :transactedAt " +
+            "or (t.transactedAt = :transactedAt and t.id < :id)) " +
+            "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findHistoryBefore(@Param("accountId") Long accountId,
+                                                   @Param("transactedAt") LocalDateTime transactedAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
+    /**
+     * 내보내기용 forward-only 커서 (트랜잭션 안에서 소비하고 닫아야 한다)
+     * fetch size 만큼씩 DB 에서 가져오므로 전체 결과를 메모리에 올리지 않는다.
+     * 읽기 전용이라 dirty checking 용 스냅샷도 만들지 않는다.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select t from Transaction t where t.account.id = :accountId " +
+            "and t.transactedAt >= :from and t.transactedAt < :to " +
+            "order by t.transactedAt, t.id")
+    Stream<Transaction> streamByAccountId(@Param("accountId") Long accountId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
 }
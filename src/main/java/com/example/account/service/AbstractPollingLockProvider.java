@@ -0,0 +1,103 @@
+package com.example.account.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 락 획득을 한 번씩 시도(tryAcquire)하면서 대기시간이 끝날 때까지 재시도하는 구현체의 공통 부분
+ * 비동기 요청은 재시도를 스케줄러에 예약하므로 대기 중에 스레드를 점유하지 않는다.
+ */
+public abstract class AbstractPollingLockProvider implements LockProvider {
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER =
+            Executors.newScheduledThreadPool(2, new DaemonThreadFactory());
+
+    protected abstract boolean tryAcquire(String key, long ownerId, long leaseNanos);
+
+    protected abstract boolean release(String key, long ownerId);
+
+    @Override
+    public boolean tryLock(String key, long waitTime, long leaseTime, TimeUnit unit)
+            throws InterruptedException {
+        long ownerId = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        long backoff = MIN_BACKOFF_NANOS;
+
+        while (!tryAcquire(key, ownerId, unit.toNanos(leaseTime))) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(backoff, remaining));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock(String key) {
+        if (!release(key, Thread.currentThread().getId())) {
+            throw new IllegalMonitorStateException(
+                    "Lock is not held by current thread : " + key);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(
+            String key, long ownerId, long waitTime, long leaseTime, TimeUnit unit) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+
+        RETRY_SCHEDULER.execute(() -> attempt(result, key, ownerId,
+                unit.toNanos(leaseTime), deadline, MIN_BACKOFF_NANOS));
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        return CompletableFuture.runAsync(() -> {
+            if (!release(key, ownerId)) {
+                throw new IllegalMonitorStateException(
+                        "Lock is not held by owner " + ownerId + " : " + key);
+            }
+        }, RETRY_SCHEDULER);
+    }
+
+    private void attempt(CompletableFuture<Boolean> result, String key, long ownerId,
+                         long leaseNanos, long deadline, long backoff) {
+        try {
+            if (tryAcquire(key, ownerId, leaseNanos)) {
+                result.complete(true);
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                result.complete(false);
+                return;
+            }
+            long nextBackoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+            RETRY_SCHEDULER.schedule(() -> attempt(result, key, ownerId,
+                            leaseNanos, deadline, nextBackoff),
+                    Math.min(backoff, remaining), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "lock-retry-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
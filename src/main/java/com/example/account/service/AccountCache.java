@@ -0,0 +1,80 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountChangedEvent;
+import com.example.account.dto.AccountMetadata;
+import com.example.account.dto.AccountUserMetadata;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 계좌번호 -> 계좌 메타데이터(id, 소유자 id, 상태), 사용자 id -> 사용자 의 프로세스 내부 캐시
+ * 잔액은 캐시하지 않으므로 잔액은 항상 락을 잡은 상태에서 DB 로 읽는다.
+ * 계좌가 바뀌면 커밋 후에 AccountChangedEvent 로 해당 항목을 지운다.
+ */
+@Slf4j
+@Component
+public class AccountCache {
+    private final Cache<String, AccountMetadata> accounts;
+    private final Cache<Long, AccountUserMetadata> accountUsers;
+
+    public AccountCache(
+            @Value("${account.cache.max-size:10000}") long maxSize,
+            @Value("${account.cache.expire-after-write:10m}") Duration expireAfterWrite
+    ) {
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.accountUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public Optional<AccountMetadata> getAccount(String accountNumber) {
+        return Optional.ofNullable(accounts.getIfPresent(accountNumber));
+    }
+
+    public void putAccount(AccountMetadata accountMetadata) {
+        accounts.put(accountMetadata.getAccountNumber(), accountMetadata);
+    }
+
+    public void evictAccount(String accountNumber) {
+        accounts.invalidate(accountNumber);
+    }
+
+    /**
+     * 변경 이후에 다시 읽어서 캐시한 항목(더 높은 버전)은 늦게 도착한 무효화 메시지로 지우지 않는다.
+     */
+    public void evictAccount(String accountNumber, Long version) {
+        if (version == null) {
+            evictAccount(accountNumber);
+            return;
+        }
+        accounts.asMap().computeIfPresent(accountNumber,
+                (key, cached) -> cached.getVersion() == null
+                        || cached.getVersion() <= version ? null : cached);
+    }
+
+    public Optional<AccountUserMetadata> getAccountUser(Long userId) {
+        return Optional.ofNullable(accountUsers.getIfPresent(userId));
+    }
+
+    public void putAccountUser(AccountUserMetadata accountUserMetadata) {
+        accountUsers.put(accountUserMetadata.getId(), accountUserMetadata);
+    }
+
+    // 롤백된 변경으로 캐시를 지우지 않도록 커밋 이후에만 반영한다.
+    @TransactionalEventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        log.debug("Evict account cache : {}", event.getAccountNumber());
+        evictAccount(event.getAccountNumber(), event.getVersion());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * 여러 노드의 AccountCache 를 Redis pub/sub 으로 함께 무효화한다.
+ * 커밋된 AccountChangedEvent 를 토픽으로 보내고, 받은 노드는 자기 캐시에서 지운다.
+ * 메시지 순서가 바뀌어도 버전이 더 높은(변경 후에 읽은) 항목은 지우지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.provider",
+        havingValue = "redis", matchIfMissing = true)
+public class AccountCacheInvalidationBus {
+    private static final String TOPIC = "account-cache-invalidation";
+
+    private final RedissonClient redissonClient;
+    private final AccountCache accountCache;
+
+    private RTopic topic;
+    private int listenerId;
+
+    @PostConstruct
+    public void subscribe() {
+        topic = redissonClient.getTopic(TOPIC);
+        listenerId = topic.addListener(AccountChangedEvent.class,
+                (channel, event) -> accountCache.evictAccount(
+                        event.getAccountNumber(), event.getVersion()));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        topic.removeListener(listenerId);
+    }
+
+    @TransactionalEventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        // 무효화 전파가 실패해도 이미 커밋된 요청을 실패시키지 않는다. (TTL 로 결국 만료됨)
+        topic.publishAsync(event).whenComplete((receivers, e) -> {
+            if (e != null) {
+                log.error("Failed to publish account cache invalidation : {}",
+                        event.getAccountNumber(), e);
+            }
+        });
+    }
+}
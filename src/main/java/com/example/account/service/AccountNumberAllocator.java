@@ -0,0 +1,157 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountNumberBlock;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountNumberBlockRepository;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 미리 예약한 블록에서 계좌번호를 꺼내주는 발급기
+ * - 시작할 때, 그리고 블록이 threshold 이하로 남으면 백그라운드에서 다음 블록을 예약해 둔다.
+ * - 호출자는 보통 커넥션을 잡은 트랜잭션 안에 있고 예약에는 별도 커넥션이 필요하므로,
+ *   블록이 준비되지 않았으면 모니터 밖에서 refill-wait-millis 까지만 기다리고 실패한다.
+ * - 순번을 10^7 위에서 곱셈 순열로 섞어서 번호가 연속되지 않게 하고, 순열이라 중복은 없다.
+ * - 최종 중복 방지는 account.account_number 의 unique 제약이 맡는다.
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private static final String PREFIX = "110";
+    private static final long NUMBER_SPACE = 10_000_000L;
+    // NUMBER_SPACE 와 서로소여야 순열이 된다.
+    private static final long MULTIPLIER = 7_654_321L;
+    private static final long OFFSET = 1_234_567L;
+
+    private final AccountNumberBlockRepository accountNumberBlockRepository;
+    private final int blockSize;
+    private final int refillThreshold;
+    private final long refillWaitMillis;
+    private final ExecutorService refillExecutor =
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-number-refill");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private long next;
+    private long end;
+    private CompletableFuture<Long> nextBlock;
+
+    public AccountNumberAllocator(
+            AccountNumberBlockRepository accountNumberBlockRepository,
+            @Value("${account.number.block-size:100}") int blockSize,
+            @Value("${account.number.refill-wait-millis:1000}") long refillWaitMillis
+    ) {
+        this.accountNumberBlockRepository = accountNumberBlockRepository;
+        this.blockSize = blockSize;
+        this.refillThreshold = Math.max(blockSize / 5, 1);
+        this.refillWaitMillis = refillWaitMillis;
+    }
+
+    @PostConstruct
+    public synchronized void prefetch() {
+        if (nextBlock == null) {
+            nextBlock = reserveBlockAsync();
+        }
+    }
+
+    public String nextAccountNumber() {
+        while (true) {
+            CompletableFuture<Long> pending;
+            synchronized (this) {
+                if (next >= end && nextBlock != null && nextBlock.isDone()) {
+                    takeNextBlock();
+                }
+                if (next < end) {
+                    long sequence = next++;
+                    if (end - next <= refillThreshold && nextBlock == null) {
+                        nextBlock = reserveBlockAsync();
+                    }
+                    return format((sequence * MULTIPLIER + OFFSET) % NUMBER_SPACE);
+                }
+                if (nextBlock == null) {
+                    nextBlock = reserveBlockAsync();
+                }
+                pending = nextBlock;
+            }
+            awaitBlock(pending);
+        }
+    }
+
+    // 모니터 밖에서 기다리므로 다른 호출자를 막지 않는다.
+    private void awaitBlock(CompletableFuture<Long> pending) {
+        try {
+            pending.get(refillWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ignored) {
+            // 예약 실패는 다음 루프에서 takeNextBlock 이 원래 예외로 던진다.
+        } catch (TimeoutException e) {
+            log.error("Account number block was not reserved in {} ms", refillWaitMillis);
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_NOT_READY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_NOT_READY);
+        }
+    }
+
+    // nextBlock 이 완료된 뒤에만 호출하므로 join 은 기다리지 않는다.
+    private void takeNextBlock() {
+        CompletableFuture<Long> block = nextBlock;
+        nextBlock = null;
+
+        long blockIndex;
+        try {
+            blockIndex = block.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException) {
+                throw (AccountException) e.getCause();
+            }
+            throw e;
+        }
+        next = blockIndex * blockSize;
+        end = next + blockSize;
+    }
+
+    // 예약은 호출한 쪽 트랜잭션과 분리해서 별도 스레드(별도 트랜잭션)에서 한다.
+    private CompletableFuture<Long> reserveBlockAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            AccountNumberBlock block = accountNumberBlockRepository.save(
+                    AccountNumberBlock.builder().blockSize(blockSize).build());
+            long blockIndex = block.getId() - 1;
+
+            if ((blockIndex + 1) * blockSize > NUMBER_SPACE) {
+                log.error("Account number space exhausted");
+                throw new AccountException(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED);
+            }
+            log.debug("Reserved account number block : {}", blockIndex);
+            return blockIndex;
+        }, refillExecutor);
+    }
+
+    private static String format(long number) {
+        String digits = Long.toString(number);
+        StringBuilder accountNumber = new StringBuilder(PREFIX.length() + 7)
+                .append(PREFIX);
+        for (int i = digits.length(); i < 7; i++) {
+            accountNumber.append('0');
+        }
+        return accountNumber.append(digits).toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdown();
+    }
+}
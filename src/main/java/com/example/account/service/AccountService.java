@@ -5,22 +5,31 @@ package com.example.account.service;
 */
 
 import com.example.account.domain.Account;
+import com.example.account.domain.AccountShard;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountChangedEvent;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.AccountUserMetadata;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountShardRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.Random;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.example.account.type.AccountStatus.IN_USE;
@@ -29,9 +38,15 @@ import static com.example.account.type.ErrorCode.*;
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_LOOKUP_SIZE = 100;
+
     private final AccountRepository accountRepository;
     // final 을 붙혀주면 생성자 호출할 때 변수로 들어가짐. (@RequiredArgsConstructor 와 관련)
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountShardRepository accountShardRepository;
+    private final AccountCache accountCache;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -46,35 +61,20 @@ public class AccountService {
 
         validateCreateAccount(accountUser);
 
-        String newAccountNumber = randomAccountNumber();
-
-        return AccountDto.fromEntity(
-                accountRepository.save(Account.builder()
-                        .accountUser(accountUser)
-                        .accountStatus(IN_USE)
-                        .accountNumber(newAccountNumber)
-                        .balance(initialBalance)
-                        .registeredAt(LocalDateTime.now())
-                        .build()));
-    }
-
-    private String randomAccountNumber() {
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
 
-        Random random = new Random();
-        StringBuilder randomNumber = new StringBuilder("110");
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUser)
+                .accountStatus(IN_USE)
+                .accountNumber(newAccountNumber)
+                .balance(initialBalance)
+                .registeredAt(LocalDateTime.now())
+                .build());
 
-        for (int i = 0; i < 7; i++) {
-            randomNumber.append(random.nextInt(9));
-        }
-
-        Optional<Account> account =
-                accountRepository.findByAccountNumber(randomNumber.toString());
+        eventPublisher.publishEvent(
+                new AccountChangedEvent(newAccountNumber, account.getVersion()));
 
-        if (account.isPresent()) {
-            return randomAccountNumber();
-        } else {
-            return randomNumber.toString();
-        }
+        return AccountDto.fromEntity(account);
     }
 
     private void validateCreateAccount(AccountUser accountUser) {
@@ -92,15 +92,74 @@ public class AccountService {
 
         validateDeleteAccount(accountUser, account);
 
+        Long version = account.getVersion();
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
         // Test 를 원활히 하기 위해 : 없어도 되는 부분 > captor
 
+        // 커밋 후에 AccountCache(다른 노드 포함) 에서 해당 계좌를 지운다.
+        eventPublisher.publishEvent(new AccountChangedEvent(accountNumber, version));
+
         return AccountDto.fromEntity(account);
     }
 
+    /**
+     * 잔액을 shardCount 개의 샤드로 나눠서 샤드별 락으로 사용/취소할 수 있게 한다.
+     * 나누고 남는 금액은 앞쪽 샤드에 1씩 더 담는다. (계좌 락 필요)
+     */
+    @Transactional
+    public AccountDto shardAccount(Long userId, String accountNumber, Integer shardCount) {
+        AccountUser accountUser = getAccountUser(userId);
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        validateShardAccount(accountUser, account);
+
+        long share = account.getBalance() / shardCount;
+        long remainder = account.getBalance() % shardCount;
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            accountShardRepository.save(AccountShard.builder()
+                    .account(account)
+                    .shardIndex(shardIndex)
+                    .balance(share + (shardIndex < remainder ? 1 : 0))
+                    .build());
+        }
+
+        Long version = account.getVersion();
+        account.setBalance(0L);
+        account.setShardCount(shardCount);
+
+        // 다른 노드가 캐시된 메타데이터로 계좌 락 경로를 타지 않도록 커밋 후에 캐시를 지운다.
+        eventPublisher.publishEvent(new AccountChangedEvent(accountNumber, version));
+
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        accountDto.setBalance(share * shardCount + remainder);
+        return accountDto;
+    }
+
+    private void validateShardAccount(AccountUser accountUser, Account account) {
+        if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (account.isSharded()) {
+            throw new AccountException(ACCOUNT_ALREADY_SHARDED);
+        }
+    }
+
+    private Long getTotalBalance(Account account) {
+        if (!account.isSharded()) {
+            return account.getBalance();
+        }
+        return account.getBalance()
+                + accountShardRepository.sumBalanceByAccountId(account.getId());
+    }
+
     private AccountUser getAccountUser(Long userId) {
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
@@ -114,25 +173,102 @@ public class AccountService {
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
+        if (getTotalBalance(account) > 0) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
     }
 
-    @Transactional
-    public List<AccountDto> getAccountByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
+    /**
+     * 사용 중인 계좌의 번호와 잔액(샤드 계좌는 샤드 합계 포함) 만 한 번의 쿼리로 읽는다.
+     * 엔티티를 올리지 않으므로 영속성 컨텍스트 비용과 연관 엔티티 조회가 없다.
+     */
+    @Transactional(readOnly = true)
+    public List<AccountInfo> getAccountByUserId(Long userId) {
+        validateAccountUserExists(userId);
 
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+        return accountRepository.findAccountInfoByUserId(userId);
+    }
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity) // .map(account -> AccountDto.fromEntity(account)) 와 같음
-                .collect(Collectors.toList());
+    /**
+     * 여러 사용자의 계좌 목록을 한 번의 IN 쿼리로 읽어서 요청한 사용자 순서대로 묶는다.
+     * 계좌가 없거나 없는 사용자는 빈 목록
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<AccountInfo>> getAccountsByUserIds(List<Long> userIds) {
+        if (userIds.isEmpty() || userIds.size() > MAX_LOOKUP_SIZE) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        Map<Long, List<AccountInfo>> accountsByUserId = new LinkedHashMap<>();
+        userIds.forEach(userId -> accountsByUserId.putIfAbsent(userId, new ArrayList<>()));
+
+        accountRepository.findAccountInfoByUserIdIn(accountsByUserId.keySet())
+                .forEach(userAccountInfo -> accountsByUserId
+                        .get(userAccountInfo.getUserId())
+                        .add(new AccountInfo(userAccountInfo.getAccountNumber(),
+                                userAccountInfo.getBalance())));
+        return accountsByUserId;
     }
 
-    @Transactional
-    public Account getAccount(Long id) {
-        return accountRepository.findById(id).get();
+    // 캐시된 사용자는 다시 조회하지 않는다.
+    private void validateAccountUserExists(Long userId) {
+        if (accountCache.getAccountUser(userId).isPresent()) {
+            return;
+        }
+        accountCache.putAccountUser(AccountUserMetadata.fromEntity(getAccountUser(userId)));
+    }
+
+    @Transactional(readOnly = true)
+    public AccountDetail getAccount(Long id) {
+        return accountRepository.findAccountDetailById(id)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    }
+
+    /**
+     * 여러 계좌를 id / 계좌번호 목록 각각 한 번의 IN 쿼리로 찾는다.
+     * (id in .. or accountNumber in .. 로 합치면 두 인덱스를 모두 쓰지 못하므로
+     * 인덱스를 타는 두 쿼리로 나누고, 두 목록이 모두 주어질 때만 쿼리가 두 번 나간다.)
+     * 결과는 요청한 순서(id 목록, 계좌번호 목록 순)이고, 없는 계좌는 빠지며,
+     * id 와 계좌번호가 같은 계좌를 가리키면 한 번만 담는다.
+     */
+    @Transactional(readOnly = true)
+    public List<AccountDetail> lookupAccounts(List<Long> ids, List<String> accountNumbers) {
+        List<Long> distinctIds = distinct(ids);
+        List<String> distinctAccountNumbers = distinct(accountNumbers);
+        if (distinctIds.isEmpty() && distinctAccountNumbers.isEmpty()) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        if (distinctIds.size() > MAX_LOOKUP_SIZE
+                || distinctAccountNumbers.size() > MAX_LOOKUP_SIZE) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+
+        Map<Long, AccountDetail> accounts = new LinkedHashMap<>();
+        if (!distinctIds.isEmpty()) {
+            Map<Long, AccountDetail> byId = accountRepository
+                    .findAccountDetailByIdIn(distinctIds).stream()
+                    .collect(Collectors.toMap(AccountDetail::getId, Function.identity()));
+            distinctIds.stream().map(byId::get).filter(Objects::nonNull)
+                    .forEach(account -> accounts.putIfAbsent(account.getId(), account));
+        }
+        if (!distinctAccountNumbers.isEmpty()) {
+            Map<String, AccountDetail> byAccountNumber = accountRepository
+                    .findAccountDetailByAccountNumberIn(distinctAccountNumbers).stream()
+                    .collect(Collectors.toMap(
+                            AccountDetail::getAccountNumber, Function.identity()));
+            distinctAccountNumbers.stream().map(byAccountNumber::get).filter(Objects::nonNull)
+                    .forEach(account -> accounts.putIfAbsent(account.getId(), account));
+        }
+        return new ArrayList<>(accounts.values());
+    }
+
+    private static <T> List<T> distinct(List<T> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
     }
 
 }
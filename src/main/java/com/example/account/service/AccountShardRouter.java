@@ -0,0 +1,266 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountMetadata;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountShardRepository;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 샤드 계좌(Account.shardCount > 1) 의 사용/취소를 샤드 하나로 보내고 그 샤드의 락만 잡는다.
+ * 샤드마다 락 키({계좌번호}#{index}) 가 다르므로 한 계좌의 처리량이 샤드 수만큼 늘어난다.
+ * 샤드 사이의 잔액 차이는 주기적인 재분배로 줄인다.
+ */
+@Slf4j
+@Component
+public class AccountShardRouter {
+    private static final long WAIT_TIME_MILLIS = 1000L;
+    private static final long LEASE_TIME_MILLIS = 15000L;
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final AccountCache accountCache;
+    private final AccountRepository accountRepository;
+    private final AccountShardRepository accountShardRepository;
+    private final Duration rebalanceInterval;
+    private final ScheduledExecutorService rebalancer;
+
+    public AccountShardRouter(
+            TransactionService transactionService,
+            LockService lockService,
+            AccountCache accountCache,
+            AccountRepository accountRepository,
+            AccountShardRepository accountShardRepository,
+            @Value("${account.shard.rebalance-interval:30s}") Duration rebalanceInterval
+    ) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.accountCache = accountCache;
+        this.accountRepository = accountRepository;
+        this.accountShardRepository = accountShardRepository;
+        this.rebalanceInterval = rebalanceInterval;
+        this.rebalancer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = rebalanceInterval.toMillis();
+        rebalancer.scheduleWithFixedDelay(this::rebalanceSkewedAccounts,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isSharded(String accountNumber) {
+        return getAccountMetadata(accountNumber)
+                .map(AccountMetadata::isSharded)
+                .orElse(false);
+    }
+
+    /**
+     * 금액이 남아 있는 샤드를 임의의 순서로 돌면서 바로 잡히는 샤드에서 뺀다.
+     * 모두 사용중이면 첫 번째 후보를 기다리고, 한 샤드로 부족하면 모든 샤드를 잠그고 나눠서 뺀다.
+     */
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        List<Long> balances = accountShardRepository.findBalancesByAccountNumber(accountNumber);
+        List<Integer> candidates = new ArrayList<>();
+        for (int shardIndex : shuffledShardIndexes(balances.size())) {
+            if (balances.get(shardIndex) >= amount) {
+                candidates.add(shardIndex);
+            }
+        }
+
+        for (int shardIndex : candidates) {
+            if (tryLockShard(accountNumber, shardIndex)) {
+                TransactionDto transactionDto =
+                        useLockedShard(userId, accountNumber, shardIndex, amount);
+                if (transactionDto != null) {
+                    return transactionDto;
+                }
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            lockShard(accountNumber, candidates.get(0));
+            TransactionDto transactionDto =
+                    useLockedShard(userId, accountNumber, candidates.get(0), amount);
+            if (transactionDto != null) {
+                return transactionDto;
+            }
+        }
+
+        List<String> locked = lockService.lockAll(getShardLockKeys(accountNumber, balances.size()),
+                WAIT_TIME_MILLIS, LEASE_TIME_MILLIS);
+        try {
+            return transactionService.useBalanceAcrossShards(userId, accountNumber, amount);
+        } finally {
+            lockService.unlockAll(locked);
+        }
+    }
+
+    // 읽은 뒤에 다른 요청이 먼저 써버려서 잔액이 모자라면 null 을 돌려준다.
+    private TransactionDto useLockedShard(
+            Long userId, String accountNumber, int shardIndex, Long amount) {
+        try {
+            return transactionService.useShardBalance(
+                    userId, accountNumber, shardIndex, amount);
+        } catch (AccountException e) {
+            if (e.getErrorCode() != ErrorCode.AMOUNT_EXCEED_BALANCE) {
+                throw e;
+            }
+            return null;
+        } finally {
+            unlockShard(accountNumber, shardIndex);
+        }
+    }
+
+    // 취소 금액은 어느 샤드에 넣어도 되므로 바로 잡히는 샤드를 쓴다.
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        int shardCount = getAccountMetadata(accountNumber)
+                .map(AccountMetadata::getShardCount)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        List<Integer> shardIndexes = shuffledShardIndexes(shardCount);
+
+        int shardIndex = shardIndexes.stream()
+                .filter(index -> tryLockShard(accountNumber, index))
+                .findFirst()
+                .orElseGet(() -> {
+                    lockShard(accountNumber, shardIndexes.get(0));
+                    return shardIndexes.get(0);
+                });
+        try {
+            return transactionService.cancelShardBalance(
+                    transactionId, accountNumber, shardIndex, amount);
+        } finally {
+            unlockShard(accountNumber, shardIndex);
+        }
+    }
+
+    /**
+     * 계좌 락과 모든 샤드 락을 잡고 잔액을 고르게 다시 나눈다.
+     * 계좌 락으로 들어온 입금(이체, 승인 취소 등) 도 이때 샤드로 옮겨진다.
+     */
+    public void rebalance(String accountNumber, int shardCount) {
+        List<String> lockKeys = new ArrayList<>();
+        lockKeys.add(accountNumber);
+        lockKeys.addAll(getShardLockKeys(accountNumber, shardCount));
+
+        List<String> locked = lockService.lockAll(lockKeys, WAIT_TIME_MILLIS, LEASE_TIME_MILLIS);
+        try {
+            transactionService.rebalanceShards(accountNumber);
+        } finally {
+            lockService.unlockAll(locked);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebalancer.shutdown();
+    }
+
+    // 계좌 balance 에 금액이 있거나 평균의 절반보다 적은 샤드가 있는 계좌만 재분배한다.
+    void rebalanceSkewedAccounts() {
+        try {
+            for (Account account : accountRepository.findByShardCountGreaterThan(1)) {
+                List<Long> balances = accountShardRepository
+                        .findBalancesByAccountNumber(account.getAccountNumber());
+                if (isSkewed(account.getBalance(), balances)) {
+                    rebalanceQuietly(account.getAccountNumber(), balances.size());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Shard rebalance failed", e);
+        }
+    }
+
+    static boolean isSkewed(long accountBalance, List<Long> shardBalances) {
+        if (accountBalance > 0) {
+            return true;
+        }
+        if (shardBalances.isEmpty()) {
+            return false;
+        }
+        long total = shardBalances.stream().mapToLong(Long::longValue).sum();
+        long halfAverage = total / shardBalances.size() / 2;
+        return shardBalances.stream().anyMatch(balance -> balance < halfAverage);
+    }
+
+    private void rebalanceQuietly(String accountNumber, int shardCount) {
+        try {
+            rebalance(accountNumber, shardCount);
+        } catch (AccountException e) {
+            log.warn("Lock failed while rebalancing account : {}, retry later", accountNumber);
+        }
+    }
+
+    private Optional<AccountMetadata> getAccountMetadata(String accountNumber) {
+        Optional<AccountMetadata> cached = accountCache.getAccount(accountNumber);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(account -> {
+                    AccountMetadata metadata = AccountMetadata.fromEntity(account);
+                    accountCache.putAccount(metadata);
+                    return metadata;
+                });
+    }
+
+    private static List<Integer> shuffledShardIndexes(int shardCount) {
+        int offset = ThreadLocalRandom.current().nextInt(Math.max(shardCount, 1));
+        List<Integer> shardIndexes = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shardIndexes.add((offset + i) % shardCount);
+        }
+        return shardIndexes;
+    }
+
+    private boolean tryLockShard(String accountNumber, int shardIndex) {
+        try {
+            lockService.lock(getShardLockKey(accountNumber, shardIndex),
+                    0L, LEASE_TIME_MILLIS, 0L);
+            return true;
+        } catch (AccountException e) {
+            return false;
+        }
+    }
+
+    private void lockShard(String accountNumber, int shardIndex) {
+        lockService.lock(getShardLockKey(accountNumber, shardIndex),
+                WAIT_TIME_MILLIS, LEASE_TIME_MILLIS, 0L);
+    }
+
+    private void unlockShard(String accountNumber, int shardIndex) {
+        lockService.unlock(getShardLockKey(accountNumber, shardIndex));
+    }
+
+    private static List<String> getShardLockKeys(String accountNumber, int shardCount) {
+        List<String> lockKeys = new ArrayList<>(shardCount);
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            lockKeys.add(getShardLockKey(accountNumber, shardIndex));
+        }
+        return lockKeys;
+    }
+
+    private static String getShardLockKey(String accountNumber, int shardIndex) {
+        return accountNumber + "#" + shardIndex;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionExecutionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 서블릿 스레드를 점유하지 않는 잔액 사용/취소
+ * - LOCK : 락은 비동기로 대기하고, DB 작업은 transactionExecutor 에서 실행한다.
+ * - SEQUENCER : 계좌별 단일 스레드 lane(TransactionSequencer) 에서 계좌 락을 잡고 실행한다.
+ *   동기 API 도 같은 계좌를 계좌 락으로 바꾸므로 lane 만으로는 배타가 되지 않는다.
+ * - GROUP_COMMIT : GroupCommitProcessor 가 동시에 들어온 요청을 모아서 한 번에 커밋한다.
+ * 샤드 계좌는 실행 모드와 상관없이 AccountShardRouter 가 샤드 락으로 처리한다.
+ * 계좌 락 대기/점유/거절은 동기 API(LockAopAspect) 와 같이 LockMetrics 에 기록한다.
+ */
+@Slf4j
+@Service
+public class AsyncTransactionService {
+    private static final String USE_BALANCE_ENDPOINT = "AsyncTransactionService.useBalance(..)";
+    private static final String CANCEL_BALANCE_ENDPOINT =
+            "AsyncTransactionService.cancelBalance(..)";
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final LockMetrics lockMetrics;
+    private final TransactionSequencer transactionSequencer;
+    private final GroupCommitProcessor groupCommitProcessor;
+    private final AccountShardRouter accountShardRouter;
+    private final Executor transactionExecutor;
+    private final TransactionExecutionMode executionMode;
+
+    public AsyncTransactionService(
+            TransactionService transactionService,
+            LockService lockService,
+            LockMetrics lockMetrics,
+            TransactionSequencer transactionSequencer,
+            GroupCommitProcessor groupCommitProcessor,
+            AccountShardRouter accountShardRouter,
+            @Qualifier("transactionExecutor") Executor transactionExecutor,
+            @Value("${account.transaction.execution-mode:LOCK}")
+                    TransactionExecutionMode executionMode
+    ) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.lockMetrics = lockMetrics;
+        this.transactionSequencer = transactionSequencer;
+        this.groupCommitProcessor = groupCommitProcessor;
+        this.accountShardRouter = accountShardRouter;
+        this.transactionExecutor = transactionExecutor;
+        this.executionMode = executionMode;
+    }
+
+    public CompletableFuture<TransactionDto> useBalance(
+            Long userId, String accountNumber, Long amount) {
+        if (accountShardRouter.isSharded(accountNumber)) {
+            return supplyOnExecutor(() -> {
+                try {
+                    return accountShardRouter.useBalance(userId, accountNumber, amount);
+                } catch (AccountException e) {
+                    transactionService.saveFailedUseTransaction(accountNumber, amount);
+
+                    throw e;
+                }
+            });
+        }
+        if (executionMode == TransactionExecutionMode.GROUP_COMMIT) {
+            return groupCommitProcessor.useBalance(userId, accountNumber, amount);
+        }
+        return execute(USE_BALANCE_ENDPOINT, accountNumber, () -> {
+            try {
+                return transactionService.useBalance(userId, accountNumber, amount);
+            } catch (AccountException e) {
+                log.error("Failed to use balance.");
+
+                transactionService.saveFailedUseTransaction(accountNumber, amount);
+
+                throw e;
+            }
+        });
+    }
+
+    public CompletableFuture<TransactionDto> cancelBalance(
+            String transactionId, String accountNumber, Long amount) {
+        if (accountShardRouter.isSharded(accountNumber)) {
+            return supplyOnExecutor(() -> {
+                try {
+                    return accountShardRouter.cancelBalance(
+                            transactionId, accountNumber, amount);
+                } catch (AccountException e) {
+                    transactionService.saveFailedCancelTransaction(accountNumber, amount);
+
+                    throw e;
+                }
+            });
+        }
+        if (executionMode == TransactionExecutionMode.GROUP_COMMIT) {
+            return groupCommitProcessor.cancelBalance(transactionId, accountNumber, amount);
+        }
+        return execute(CANCEL_BALANCE_ENDPOINT, accountNumber, () -> {
+            try {
+                return transactionService.cancelBalance(transactionId, accountNumber, amount);
+            } catch (AccountException e) {
+                log.error("Failed to cancel balance.");
+
+                transactionService.saveFailedCancelTransaction(accountNumber, amount);
+
+                throw e;
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> execute(
+            String endpoint, String accountNumber, Supplier<T> action) {
+        if (executionMode == TransactionExecutionMode.SEQUENCER) {
+            return transactionSequencer.submit(accountNumber,
+                    () -> withAccountLockOnLane(endpoint, accountNumber, action));
+        }
+        return withAccountLock(endpoint, accountNumber, action);
+    }
+
+    private <T> CompletableFuture<T> withAccountLock(
+            String endpoint, String accountNumber, Supplier<T> action) {
+        long ownerId = lockService.newAsyncOwnerId();
+        long startedAt = System.nanoTime();
+
+        return lockService.lockAsync(accountNumber, ownerId)
+                .whenComplete((locked, e) -> {
+                    if (e != null) {
+                        recordRejected(endpoint, accountNumber, startedAt, e);
+                    }
+                })
+                .thenCompose(locked -> {
+                    long lockedAt = System.nanoTime();
+                    lockMetrics.recordWait(endpoint, accountNumber, lockedAt - startedAt);
+                    return supplyOnExecutor(action)
+                            .whenComplete((result, e) -> {
+                                lockMetrics.recordHold(endpoint, System.nanoTime() - lockedAt);
+                                unlock(accountNumber, ownerId);
+                            });
+                });
+    }
+
+    // lane 스레드가 락을 잡고 푸므로 스레드 기반 락(lock/unlock) 을 쓴다.
+    private <T> T withAccountLockOnLane(
+            String endpoint, String accountNumber, Supplier<T> action) {
+        long startedAt = System.nanoTime();
+        try {
+            lockService.lock(accountNumber);
+        } catch (AccountException e) {
+            recordRejected(endpoint, accountNumber, startedAt, e);
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+        lockMetrics.recordWait(endpoint, accountNumber, lockedAt - startedAt);
+        try {
+            return action.get();
+        } finally {
+            lockMetrics.recordHold(endpoint, System.nanoTime() - lockedAt);
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private void recordRejected(
+            String endpoint, String accountNumber, long startedAt, Throwable e) {
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        if (cause instanceof AccountException && ((AccountException) cause).getErrorCode()
+                == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+            lockMetrics.recordRejected(endpoint, accountNumber, System.nanoTime() - startedAt);
+        }
+    }
+
+    private <T> CompletableFuture<T> supplyOnExecutor(Supplier<T> action) {
+        try {
+            return CompletableFuture.supplyAsync(action, transactionExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void unlock(String accountNumber, long ownerId) {
+        lockService.unlockAsync(accountNumber, ownerId)
+                .exceptionally(e -> {
+                    log.error("Async unlock failed", e);
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceHoldCreatedEvent;
+import com.example.account.exception.AccountException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 만료된 승인 건의 잔액을 자동으로 되돌린다.
+ * 승인 건마다 JDK ScheduledExecutorService 에 타이머를 건다. (등록/만료가 O(log n) 인 delay queue)
+ * 타이머 스레드는 막히면 안 되므로 실제 처리(락 + DB) 는 transactionExecutor 에서 한다.
+ * 락 획득이나 DB 처리에 실패하면 간격을 두 배씩 늘려가며(최대 MAX_RETRY_DELAY_MILLIS) 다시 시도한다.
+ */
+@Slf4j
+@Component
+public class BalanceHoldExpiryScheduler {
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000L;
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final Executor transactionExecutor;
+    private final ScheduledExecutorService timer;
+    private final long retryDelayMillis;
+
+    public BalanceHoldExpiryScheduler(
+            TransactionService transactionService,
+            LockService lockService,
+            @Qualifier("transactionExecutor") Executor transactionExecutor,
+            @Value("${account.hold.retry-delay-millis:1000}") long retryDelayMillis
+    ) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.transactionExecutor = transactionExecutor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    // 재시작 전에 걸려 있던 승인 건의 타이머를 다시 건다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedulePendingHolds() {
+        transactionService.getHeldBalanceHolds().forEach(balanceHold ->
+                schedule(balanceHold.getHoldId(), balanceHold.getAccountNumber(),
+                        balanceHold.getExpiresAt()));
+    }
+
+    @TransactionalEventListener
+    public void onBalanceHoldCreated(BalanceHoldCreatedEvent event) {
+        schedule(event.getHoldId(), event.getAccountNumber(), event.getExpiresAt());
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    private void schedule(String holdId, String accountNumber, LocalDateTime expiresAt) {
+        long delayMillis = Math.max(
+                Duration.between(LocalDateTime.now(), expiresAt).toMillis(), 0L);
+        schedule(holdId, accountNumber, delayMillis, 0);
+    }
+
+    private void schedule(String holdId, String accountNumber, long delayMillis, int attempt) {
+        try {
+            timer.schedule(() -> {
+                try {
+                    transactionExecutor.execute(() -> expire(holdId, accountNumber, attempt));
+                } catch (RejectedExecutionException e) {
+                    retry(holdId, accountNumber, attempt);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 종료 중이면 재시작할 때 schedulePendingHolds 가 다시 건다.
+            log.warn("Expiry timer stopped, hold : {} will be rescheduled on restart", holdId);
+        }
+    }
+
+    private void retry(String holdId, String accountNumber, int attempt) {
+        schedule(holdId, accountNumber, getRetryDelayMillis(attempt), attempt + 1);
+    }
+
+    long getRetryDelayMillis(int attempt) {
+        long delay = retryDelayMillis << Math.min(attempt, 30);
+        return delay <= 0 ? MAX_RETRY_DELAY_MILLIS : Math.min(delay, MAX_RETRY_DELAY_MILLIS);
+    }
+
+    private void expire(String holdId, String accountNumber, int attempt) {
+        try {
+            lockService.lock(accountNumber);
+        } catch (AccountException e) {
+            log.warn("Lock failed while expiring hold : {}, retry later", holdId);
+            retry(holdId, accountNumber, attempt);
+            return;
+        }
+        try {
+            transactionService.expireBalanceHold(holdId);
+        } catch (AccountException e) {
+            // 승인 건이 없는 경우 등은 다시 시도해도 같으므로 재시도하지 않는다.
+            log.error("Failed to expire hold : {}, errorCode : {}", holdId, e.getErrorCode());
+        } catch (RuntimeException e) {
+            log.error("Failed to expire hold : {}, retry later (attempt {})",
+                    holdId, attempt + 1, e);
+            retry(holdId, accountNumber, attempt);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 동시에 들어온 잔액 사용/취소 요청을 몇 ms 동안 모아서 하나의 DB 트랜잭션으로 커밋한다.
+ * 커밋(fsync) 비용을 여러 요청이 나눠 내고, Transaction insert 는 JDBC batch 로 나간다.
+ *
+ * - 요청마다 성공/실패 결과를 따로 돌려준다. (AccountException 은 해당 요청만 실패 처리)
+ * - 배치 커밋이 실패하면(버전 충돌 등) 요청을 하나씩 다시 커밋해서 서로 영향을 주지 않게 한다.
+ * - 배치의 계좌 락을 모두 잡고 커밋하므로 같은 계좌를 바꾸는 동기 API, 다른 노드와도 배타적으로 실행된다.
+ *   워커 스레드가 하나뿐이므로 락은 기다리지 않고(wait 0) 시도만 한다.
+ *   한 번에 잡지 못하면 계좌별로 다시 시도하고, 사용 중인 계좌의 요청은 다음 배치로 미룬다.
+ *   lock-wait-millis 가 지나도록 락을 잡지 못한 요청은 실패로 돌려준다.
+ * - 종료할 때 큐에 남은 요청은 실패로 돌려준다.
+ */
+@Slf4j
+@Component
+public class GroupCommitProcessor {
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000L;
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final BlockingQueue<PendingOperation> queue;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long lockWaitMillis;
+    private final long lockLeaseMillis;
+    // 계좌 락을 잡지 못해 다음 배치로 미룬 요청 (워커 스레드에서만 사용)
+    private final List<PendingOperation> deferred = new ArrayList<>();
+
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public GroupCommitProcessor(
+            TransactionService transactionService,
+            LockService lockService,
+            PlatformTransactionManager transactionManager,
+            EntityManager entityManager,
+            @Value("${account.transaction.group-commit.max-batch-size:100}") int maxBatchSize,
+            @Value("${account.transaction.group-commit.max-wait-millis:5}") long maxWaitMillis,
+            @Value("${account.transaction.group-commit.queue-capacity:10000}") int queueCapacity,
+            @Value("${account.transaction.group-commit.lock-wait-millis:1000}") long lockWaitMillis,
+            @Value("${account.transaction.group-commit.lock-lease-millis:15000}") long lockLeaseMillis
+    ) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.lockWaitMillis = lockWaitMillis;
+        this.lockLeaseMillis = lockLeaseMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "group-commit");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        failRemaining();
+    }
+
+    public CompletableFuture<TransactionDto> useBalance(
+            Long userId, String accountNumber, Long amount) {
+        return submit(new PendingOperation(accountNumber, false,
+                () -> transactionService.applyUseBalance(userId, accountNumber, amount),
+                () -> transactionService.applyFailedUseTransaction(accountNumber, amount),
+                new CompletableFuture<>()));
+    }
+
+    public CompletableFuture<TransactionDto> cancelBalance(
+            String transactionId, String accountNumber, Long amount) {
+        // 같은 배치 안의 앞선 사용 거래를 취소할 수 있으므로 거래 조회 전에 flush 한다.
+        return submit(new PendingOperation(accountNumber, true,
+                () -> transactionService.applyCancelBalance(transactionId, accountNumber, amount),
+                () -> transactionService.applyFailedCancelTransaction(accountNumber, amount),
+                new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<TransactionDto> submit(PendingOperation operation) {
+        operation.lockDeadlineNanos =
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockWaitMillis);
+        if (!running || !queue.offer(operation)) {
+            log.error("Group commit queue is full or stopped");
+            operation.result.completeExceptionally(
+                    new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        } else if (!running) {
+            // stop() 이 큐를 비운 뒤에 들어온 요청
+            failRemaining();
+        }
+        return operation.result;
+    }
+
+    private void run() {
+        List<PendingOperation> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                collect(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+                break;
+            } catch (RuntimeException e) {
+                log.error("Group commit worker failed", e);
+                fail(batch, toAccountException(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        fail(deferred, new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        deferred.clear();
+    }
+
+    // 미뤄 둔 요청부터 담고, 첫 요청이 들어오면 maxWaitNanos 동안 또는 maxBatchSize 가 찰 때까지 모은다.
+    // 미뤄 둔 요청이 있으면 maxWaitNanos 만큼 기다린 뒤에 다시 락을 시도하게 된다.
+    private void collect(List<PendingOperation> batch) throws InterruptedException {
+        int fromDeferred = Math.min(deferred.size(), maxBatchSize);
+        batch.addAll(deferred.subList(0, fromDeferred));
+        deferred.subList(0, fromDeferred).clear();
+        if (batch.isEmpty()) {
+            batch.add(queue.take());
+        }
+        long deadline = System.nanoTime() + maxWaitNanos;
+
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                return;
+            }
+            PendingOperation next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingOperation> batch) {
+        Set<String> accountNumbers = batch.stream()
+                .map(operation -> operation.accountNumber)
+                .collect(Collectors.toSet());
+        List<String> locked;
+        try {
+            locked = lockService.lockAll(accountNumbers, 0L, lockLeaseMillis);
+        } catch (RuntimeException e) {
+            log.warn("Failed to lock {} accounts for group commit, committing by account",
+                    accountNumbers.size(), e);
+            commitByAccount(batch);
+            return;
+        }
+        try {
+            commitLocked(batch);
+        } finally {
+            lockService.unlockAll(locked);
+        }
+    }
+
+    private void commitLocked(List<PendingOperation> batch) {
+        List<Runnable> completions;
+        try {
+            completions = transactionTemplate.execute(status -> applyAll(batch));
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} operations failed, retrying one by one",
+                    batch.size(), e);
+            batch.forEach(this::commitSingle);
+            return;
+        }
+        // 커밋이 끝난 후에 결과를 알려준다.
+        completions.forEach(Runnable::run);
+    }
+
+    private void commitByAccount(List<PendingOperation> batch) {
+        Map<String, List<PendingOperation>> byAccount = batch.stream()
+                .collect(Collectors.groupingBy(operation -> operation.accountNumber,
+                        LinkedHashMap::new, Collectors.toList()));
+        byAccount.forEach((accountNumber, operations) -> {
+            try {
+                lockService.lock(accountNumber, 0L, lockLeaseMillis, 0L);
+            } catch (RuntimeException e) {
+                deferOrFail(operations, toAccountException(e));
+                return;
+            }
+            try {
+                commitLocked(operations);
+            } finally {
+                lockService.unlock(accountNumber);
+            }
+        });
+    }
+
+    private void deferOrFail(List<PendingOperation> operations, AccountException e) {
+        long now = System.nanoTime();
+        for (PendingOperation operation : operations) {
+            if (running && now - operation.lockDeadlineNanos < 0) {
+                deferred.add(operation);
+            } else {
+                operation.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void commitSingle(PendingOperation operation) {
+        try {
+            transactionTemplate.execute(status -> applyAll(List.of(operation)))
+                    .forEach(Runnable::run);
+        } catch (RuntimeException e) {
+            log.error("Group commit of single operation failed", e);
+            operation.result.completeExceptionally(toAccountException(e));
+        }
+    }
+
+    private List<Runnable> applyAll(List<PendingOperation> operations) {
+        // 같은 계좌를 여러 번 조회해도 중간 flush 가 일어나지 않게 커밋 때 한 번에 flush 한다.
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+
+        List<Runnable> completions = new ArrayList<>(operations.size());
+        for (PendingOperation operation : operations) {
+            completions.add(apply(operation));
+        }
+        return completions;
+    }
+
+    private Runnable apply(PendingOperation operation) {
+        if (operation.flushBeforeApply) {
+            entityManager.flush();
+        }
+        try {
+            TransactionDto transactionDto = operation.action.get();
+            return () -> operation.result.complete(transactionDto);
+        } catch (AccountException e) {
+            try {
+                operation.recordFailure.run();
+            } catch (AccountException ignored) {
+                // 계좌가 없는 경우 등은 실패 거래도 남길 수 없다.
+            }
+            return () -> operation.result.completeExceptionally(e);
+        }
+    }
+
+    private void failRemaining() {
+        List<PendingOperation> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        fail(remaining, new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+    }
+
+    private static void fail(List<PendingOperation> operations, AccountException e) {
+        operations.forEach(operation -> operation.result.completeExceptionally(e));
+    }
+
+    // 버전 충돌 등 동시성 실패는 락 획득 실패와 같은 에러로, 나머지는 내부 오류로 돌려준다.
+    private static AccountException toAccountException(RuntimeException e) {
+        if (e instanceof AccountException) {
+            return (AccountException) e;
+        }
+        if (e instanceof ConcurrencyFailureException) {
+            return new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingOperation {
+        private final String accountNumber;
+        private final boolean flushBeforeApply;
+        private final Supplier<TransactionDto> action;
+        private final Runnable recordFailure;
+        private final CompletableFuture<TransactionDto> result;
+        private long lockDeadlineNanos;
+    }
+}
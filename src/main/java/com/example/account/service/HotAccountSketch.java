@@ -0,0 +1,66 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 가장 많이 경합한 계좌를 capacity 개까지만 추적하는 Space-Saving top-K 스케치
+ * 계좌 수와 상관없이 메모리가 일정하고, count 는 실제 값보다 최대 error 만큼 클 수 있다.
+ */
+public class HotAccountSketch {
+    private final int capacity;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public HotAccountSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(String accountNumber) {
+        Entry entry = entries.get(accountNumber);
+        if (entry != null) {
+            entry.count++;
+            return;
+        }
+        if (entries.size() < capacity) {
+            entries.put(accountNumber, new Entry(accountNumber, 1, 0));
+            return;
+        }
+
+        // 가장 작은 항목을 밀어내고 그 count 를 이어받는다.
+        Entry min = entries.values().stream()
+                .min(Comparator.comparingLong(e -> e.count))
+                .orElseThrow(IllegalStateException::new);
+        entries.remove(min.accountNumber);
+        entries.put(accountNumber, new Entry(accountNumber, min.count + 1, min.count));
+    }
+
+    public synchronized List<HotAccount> top(int k) {
+        return entries.values().stream()
+                .sorted(Comparator.comparingLong((Entry e) -> e.count).reversed())
+                .limit(k)
+                .map(e -> new HotAccount(e.accountNumber, e.count, e.error))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final String accountNumber;
+        private long count;
+        private final long error;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class HotAccount {
+        private final String accountNumber;
+        private final long count;
+        private final long error;
+    }
+}
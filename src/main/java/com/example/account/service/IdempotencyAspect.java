@@ -0,0 +1,71 @@
+package com.example.account.service;
+
+import com.example.account.aop.Idempotent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+// LockAopAspect 보다 바깥에서 실행되어야 중복 요청이 락을 잡지 않는다.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Around("@annotation(idempotent)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            Idempotent idempotent
+    ) throws Throwable {
+        String idempotencyKey = getIdempotencyKey();
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return pjp.proceed();
+        }
+
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        return idempotencyStore.execute(
+                signature.toShortString() + ":" + idempotencyKey,
+                fingerprint(pjp.getArgs()),
+                signature.getReturnType(),
+                pjp::proceed);
+    }
+
+    /**
+     * 요청 인자(요청 본문) 의 SHA-256. 사용자 id 도 본문에 있으므로
+     * 다른 사용자가 같은 키를 쓰면 처음 결과를 돌려주지 않고 IDEMPOTENCY_KEY_REUSED 로 거절된다.
+     */
+    private String fingerprint(Object[] args) throws JsonProcessingException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(args));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getIdempotencyKey() {
+        if (!(RequestContextHolder.getRequestAttributes()
+                instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
+                .getRequest().getHeader(Idempotent.HEADER);
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key 별 처리 결과 저장소
+ * - 노드 안 : 키마다 CompletableFuture 를 두고, 처리 중인 중복 요청은 그 결과를 기다린다.
+ * - 노드 간 : Redis 가 있으면 "처리 중" 표시를 먼저 선점하고, 완료된 결과를 TTL 동안 보관한다.
+ *   "처리 중" 표시는 짧은 processingTtl 로 걸고 처리하는 동안 주기적으로 연장한다.
+ *   (처리하던 노드가 죽으면 processingTtl 이 지난 뒤에 다른 노드가 다시 처리할 수 있다.)
+ * - 키마다 요청 내용의 fingerprint 를 같이 저장하고, 같은 키로 다른 요청이 오면 IDEMPOTENCY_KEY_REUSED 로 거절한다.
+ *
+ * AccountException 도 결과로 저장해서 재시도가 실패 거래를 다시 남기지 않게 한다.
+ * 단, 락 획득 실패(ACCOUNT_TRANSACTION_LOCK)는 실제로 처리되지 않았으므로 저장하지 않는다.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final String KEY_PREFIX = "IDEM:";
+    private static final String IN_PROGRESS_PREFIX = "IN_PROGRESS:";
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    // 선점한 노드의 표시일 때만 연장/삭제한다.
+    private static final String REFRESH_CLAIM_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+    private static final String RELEASE_CLAIM_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final Cache<String, LocalEntry> outcomes;
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration processingTtl;
+    private final Duration waitTimeout;
+    private final ScheduledExecutorService claimRefresher;
+
+    public IdempotencyStore(
+            ObjectProvider<RedissonClient> redissonClient,
+            ObjectMapper objectMapper,
+            @Value("${account.idempotency.max-size:100000}") long maxSize,
+            @Value("${account.idempotency.ttl:24h}") Duration ttl,
+            @Value("${account.idempotency.processing-ttl:30s}") Duration processingTtl,
+            @Value("${account.idempotency.wait-timeout:10s}") Duration waitTimeout
+    ) {
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.redissonClient = redissonClient.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.processingTtl = processingTtl;
+        this.waitTimeout = waitTimeout;
+        this.claimRefresher = this.redissonClient == null ? null
+                : Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "idempotency-claim-refresher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void close() {
+        if (claimRefresher != null) {
+            claimRefresher.shutdownNow();
+        }
+    }
+
+    /**
+     * fingerprint 는 요청 내용(본문 등)의 해시로, 같은 키로 들어온 요청이 처음 요청과 같은지 확인하는 데 쓴다.
+     */
+    public <T> T execute(String key, String fingerprint, Class<T> resultType,
+                         Action action) throws Throwable {
+        LocalEntry mine = new LocalEntry(fingerprint, new CompletableFuture<>());
+        LocalEntry existing = outcomes.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            log.debug("Duplicate request for idempotency key : {}", key);
+            verifyFingerprint(existing.fingerprint, fingerprint);
+            return replay(await(existing.outcome), resultType);
+        }
+
+        Outcome outcome;
+        try {
+            String claim = IN_PROGRESS_PREFIX + UUID.randomUUID() + ":" + fingerprint;
+            outcome = claimRemote(key, claim, fingerprint);
+            if (outcome == null) {
+                outcome = run(key, claim, fingerprint, action);
+            }
+        } catch (Throwable e) {
+            // 처리되지 않은 요청은 같은 키로 다시 시도할 수 있도록 지운다.
+            outcomes.asMap().remove(key, mine);
+            mine.outcome.completeExceptionally(e);
+            throw e;
+        }
+        mine.outcome.complete(outcome);
+        return replay(outcome, resultType);
+    }
+
+    private Outcome run(String key, String claim, String fingerprint,
+                        Action action) throws Throwable {
+        ScheduledFuture<?> refresh = scheduleClaimRefresh(key, claim);
+        Outcome outcome;
+        try {
+            outcome = Outcome.success(
+                    objectMapper.writeValueAsString(action.proceed()), fingerprint);
+        } catch (AccountException e) {
+            if (e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+                releaseRemote(key, claim, refresh);
+                throw e;
+            }
+            outcome = Outcome.failure(e.getErrorCode(), fingerprint);
+        } catch (Throwable e) {
+            releaseRemote(key, claim, refresh);
+            throw e;
+        }
+        saveRemote(key, outcome, refresh);
+        return outcome;
+    }
+
+    // 다른 노드가 이미 처리했거나 처리 중이면 그 결과를, 선점에 성공하면 null 을 돌려준다.
+    private Outcome claimRemote(String key, String claim,
+                                String fingerprint) throws JsonProcessingException {
+        if (redissonClient == null) {
+            return null;
+        }
+        RBucket<String> bucket = bucket(key);
+        if (bucket.trySet(claim, processingTtl.toMillis(), TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            String value = bucket.get();
+            if (value == null) {
+                // 처리하던 노드가 실패해서 선점을 풀었거나 processingTtl 이 지났다.
+                return claimRemote(key, claim, fingerprint);
+            }
+            if (!value.startsWith(IN_PROGRESS_PREFIX)) {
+                Outcome outcome = objectMapper.readValue(value, Outcome.class);
+                verifyFingerprint(outcome.getFingerprint(), fingerprint);
+                return outcome;
+            }
+            verifyFingerprint(value.substring(value.lastIndexOf(':') + 1), fingerprint);
+            sleep();
+        }
+        throw new AccountException(ErrorCode.DUPLICATE_REQUEST_IN_PROGRESS);
+    }
+
+    // processingTtl 의 1/3 마다 선점을 연장한다. 다른 노드가 가져간 뒤에는 연장하지 않는다.
+    private ScheduledFuture<?> scheduleClaimRefresh(String key, String claim) {
+        if (redissonClient == null) {
+            return null;
+        }
+        long intervalMillis = Math.max(processingTtl.toMillis() / 3, 1L);
+        return claimRefresher.scheduleAtFixedRate(() -> {
+            try {
+                if (!compareAndRun(REFRESH_CLAIM_SCRIPT, key, claim,
+                        String.valueOf(processingTtl.toMillis()))) {
+                    log.warn("Idempotency claim was lost while processing : {}", key);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh idempotency claim : {}", key, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean compareAndRun(String script, String key, Object... args) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, script, RScript.ReturnType.INTEGER,
+                List.<Object>of(KEY_PREFIX + key), args);
+        return result != null && result > 0;
+    }
+
+    private static void stopClaimRefresh(ScheduledFuture<?> refresh) {
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+    }
+
+    private void saveRemote(String key, Outcome outcome, ScheduledFuture<?> refresh) {
+        stopClaimRefresh(refresh);
+        if (redissonClient == null) {
+            return;
+        }
+        try {
+            bucket(key).set(objectMapper.writeValueAsString(outcome),
+                    ttl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Failed to save idempotent outcome : {}", key, e);
+        }
+    }
+
+    private void releaseRemote(String key, String claim, ScheduledFuture<?> refresh) {
+        stopClaimRefresh(refresh);
+        if (redissonClient == null) {
+            return;
+        }
+        try {
+            compareAndRun(RELEASE_CLAIM_SCRIPT, key, claim);
+        } catch (RuntimeException e) {
+            log.error("Failed to release idempotency claim : {}", key, e);
+        }
+    }
+
+    private static void verifyFingerprint(String stored, String fingerprint) {
+        if (!Objects.equals(stored, fingerprint)) {
+            throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket(KEY_PREFIX + key, StringCodec.INSTANCE);
+    }
+
+    private Outcome await(CompletableFuture<Outcome> original) throws Throwable {
+        try {
+            return original.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new AccountException(ErrorCode.DUPLICATE_REQUEST_IN_PROGRESS);
+        }
+    }
+
+    private <T> T replay(Outcome outcome, Class<T> resultType) throws JsonProcessingException {
+        if (outcome.getErrorCode() != null) {
+            throw new AccountException(outcome.getErrorCode());
+        }
+        return objectMapper.readValue(outcome.getBody(), resultType);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.DUPLICATE_REQUEST_IN_PROGRESS);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        Object proceed() throws Throwable;
+    }
+
+    @AllArgsConstructor
+    private static class LocalEntry {
+        private final String fingerprint;
+        private final CompletableFuture<Outcome> outcome;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Outcome {
+        private String body;
+        private ErrorCode errorCode;
+        private String fingerprint;
+
+        static Outcome success(String body, String fingerprint) {
+            return new Outcome(body, null, fingerprint);
+        }
+
+        static Outcome failure(ErrorCode errorCode, String fingerprint) {
+            return new Outcome(null, errorCode, fingerprint);
+        }
+    }
+}
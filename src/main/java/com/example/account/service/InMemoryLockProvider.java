@@ -0,0 +1,71 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 단일 노드 배포와 테스트용 프로세스 내부 락
+ * 락 레코드를 ConcurrentHashMap 에 CAS(putIfAbsent/replace/remove) 로만 갱신한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "memory")
+public class InMemoryLockProvider extends AbstractPollingLockProvider {
+    private final ConcurrentMap<String, LockRecord> locks = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean tryAcquire(String key, long ownerId, long leaseNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            LockRecord current = locks.get(key);
+
+            if (current == null) {
+                if (locks.putIfAbsent(key,
+                        new LockRecord(ownerId, 1, now + leaseNanos)) == null) {
+                    return true;
+                }
+                continue;
+            }
+            if (!current.isExpired(now) && current.ownerId != ownerId) {
+                return false;
+            }
+
+            int holdCount = current.isExpired(now) ? 1 : current.holdCount + 1;
+            if (locks.replace(key, current,
+                    new LockRecord(ownerId, holdCount, now + leaseNanos))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    protected boolean release(String key, long ownerId) {
+        while (true) {
+            LockRecord current = locks.get(key);
+            if (current == null || current.ownerId != ownerId) {
+                return false;
+            }
+            boolean released = current.holdCount > 1
+                    ? locks.replace(key, current, new LockRecord(
+                            ownerId, current.holdCount - 1, current.expiresAt))
+                    : locks.remove(key, current);
+            if (released) {
+                return true;
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class LockRecord {
+        private final long ownerId;
+        private final int holdCount;
+        private final long expiresAt;
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * account_lock 테이블의 row 로 잡는 DB 락
+ * Redis 없이 여러 노드가 같은 DB 를 바라볼 때 사용한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "jdbc")
+public class JdbcLockProvider extends AbstractPollingLockProvider {
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected boolean tryAcquire(String key, long ownerId, long leaseNanos) {
+        String owner = getOwner(ownerId);
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp lockedUntil = Timestamp.valueOf(now.plusNanos(leaseNanos));
+
+        return insertLock(key, owner, lockedUntil) ||
+                takeOverExpiredLock(key, owner, lockedUntil, Timestamp.valueOf(now));
+    }
+
+    @Override
+    protected boolean release(String key, long ownerId) {
+        return jdbcTemplate.update(
+                "delete from account_lock where lock_key = ? and owner = ?",
+                key, getOwner(ownerId)) == 1;
+    }
+
+    private boolean insertLock(String key, String owner, Timestamp lockedUntil) {
+        try {
+            return jdbcTemplate.update(
+                    "insert into account_lock(lock_key, owner, locked_until) values (?, ?, ?)",
+                    key, owner, lockedUntil) == 1;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean takeOverExpiredLock(
+            String key, String owner, Timestamp lockedUntil, Timestamp now) {
+        return jdbcTemplate.update(
+                "update account_lock set owner = ?, locked_until = ? " +
+                        "where lock_key = ? and locked_until < ?",
+                owner, lockedUntil, key, now) == 1;
+    }
+
+    private static String getOwner(long ownerId) {
+        return NODE_ID + ":" + ownerId;
+    }
+}
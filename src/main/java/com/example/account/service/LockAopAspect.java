@@ -1,35 +1,154 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.MultiAccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LockStrategy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
+    private static final long BASE_BACKOFF_MILLIS = 10L;
+
     private final LockService lockService;
+    private final LockHoldTimeTracker lockHoldTimeTracker;
+    private final LockMetrics lockMetrics;
+    // AccountShardRouter 는 TransactionService 에 의존하므로 aspect 생성 시점에 만들지 않는다.
+    private final ObjectProvider<AccountShardRouter> accountShardRouter;
 
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    @Around("@annotation(accountLock) && args(request)")
 
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
+            AccountLock accountLock,
             AccountLockIdInterface request
     ) throws Throwable {
+        String endpoint = pjp.getSignature().toShortString();
+
+        if (accountLock.shardAware()
+                && accountShardRouter.getObject().isSharded(request.getAccountNumber())) {
+            return pjp.proceed();
+        }
+
+        if (accountLock.strategy() == LockStrategy.OPTIMISTIC) {
+            return proceedWithRetry(pjp, accountLock, request, endpoint);
+        }
+
         // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        long startedAt = System.nanoTime();
+        try {
+            lockService.lock(request.getAccountNumber(),
+                    accountLock.tryLockTime(),
+                    getLeaseTime(accountLock, endpoint),
+                    accountLock.adaptiveLease()
+                            ? lockHoldTimeTracker.getExpectedHoldTime(endpoint) : 0L);
+        } catch (AccountException e) {
+            if (e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+                lockMetrics.recordRejected(endpoint, request.getAccountNumber(),
+                        System.nanoTime() - startedAt);
+            }
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+        lockMetrics.recordWait(endpoint, request.getAccountNumber(), lockedAt - startedAt);
         try {
             // before
             return pjp.proceed();
             // after -> around 를 사용해서 비포, 애프터로 감쌀수 있다.
         } finally {
+            long holdNanos = System.nanoTime() - lockedAt;
+            lockHoldTimeTracker.record(endpoint, TimeUnit.NANOSECONDS.toMillis(holdNanos));
+            lockMetrics.recordHold(endpoint, holdNanos);
             // lock 해제
             lockService.unlock(request.getAccountNumber());
         }
     }
+
+    /**
+     * 여러 계좌에 걸친 요청(일괄 사용, 이체 등)은 모든 계좌를 정해진 순서로 잠근다.
+     */
+    @Around("@annotation(accountLock) && args(request)")
+    public Object aroundMultiAccountMethod(
+            ProceedingJoinPoint pjp,
+            AccountLock accountLock,
+            MultiAccountLockIdInterface request
+    ) throws Throwable {
+        String endpoint = pjp.getSignature().toShortString();
+
+        long startedAt = System.nanoTime();
+        List<String> locked;
+        try {
+            locked = lockService.lockAll(request.getAccountNumbers(),
+                    accountLock.tryLockTime(), getLeaseTime(accountLock, endpoint));
+        } catch (AccountException e) {
+            if (e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+                long waitNanos = System.nanoTime() - startedAt;
+                request.getAccountNumbers().stream().distinct().forEach(accountNumber ->
+                        lockMetrics.recordRejected(endpoint, accountNumber, waitNanos));
+            }
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+        for (String accountNumber : locked) {
+            lockMetrics.recordWait(endpoint, accountNumber, lockedAt - startedAt);
+        }
+        try {
+            return pjp.proceed();
+        } finally {
+            long holdNanos = System.nanoTime() - lockedAt;
+            lockHoldTimeTracker.record(endpoint, TimeUnit.NANOSECONDS.toMillis(holdNanos));
+            lockMetrics.recordHold(endpoint, holdNanos);
+            lockService.unlockAll(locked);
+        }
+    }
+
+    /**
+     * 버전 충돌은 커밋 시점(트랜잭션 밖)에서 발생하므로 여기서 트랜잭션 전체를 다시 실행한다.
+     * 재시도 간격은 지수 증가 + jitter, 모두 실패하면 락 획득 실패와 같은 에러를 준다.
+     */
+    private Object proceedWithRetry(
+            ProceedingJoinPoint pjp,
+            AccountLock accountLock,
+            AccountLockIdInterface request,
+            String endpoint
+    ) throws Throwable {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= accountLock.maxRetries()) {
+                    log.error("=======Optimistic lock retry exhausted=======");
+                    lockMetrics.recordRejected(endpoint, request.getAccountNumber(), 0L);
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                lockMetrics.recordOptimisticRetry(endpoint, request.getAccountNumber());
+
+                long backoff = BASE_BACKOFF_MILLIS << attempt;
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+            }
+        }
+    }
+
+    private long getLeaseTime(AccountLock accountLock, String endpoint) {
+        if (!accountLock.adaptiveLease()) {
+            return accountLock.leaseTime();
+        }
+        return lockHoldTimeTracker.getLeaseTime(endpoint, accountLock.leaseTime());
+    }
 }
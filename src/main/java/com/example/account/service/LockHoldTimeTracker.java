@@ -0,0 +1,82 @@
+package com.example.account.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 엔드포인트별 최근 락 점유 시간(ms)을 링 버퍼에 모아서
+ * 적응형 leaseTime 과 예상 대기 시간 계산에 사용한다.
+ */
+@Component
+public class LockHoldTimeTracker {
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int LEASE_MULTIPLIER = 3;
+    // GC 정지, DB 지연 등 p99 를 넘는 점유에도 락이 먼저 풀리지 않도록 더하는 여유 시간
+    private static final long LEASE_SAFETY_MARGIN_MILLIS = 2000L;
+    private static final long MIN_LEASE_TIME_MILLIS = 3000L;
+
+    private final ConcurrentMap<String, HoldTimeWindow> windows = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long holdTimeMillis) {
+        windows.computeIfAbsent(endpoint, key -> new HoldTimeWindow())
+                .add(holdTimeMillis);
+    }
+
+    /**
+     * p99 의 LEASE_MULTIPLIER 배에 여유 시간을 더해서 leaseTime 으로 쓰되 maxLeaseTime 을 넘지 않는다.
+     * 샘플이 부족하면 maxLeaseTime 을 그대로 사용한다.
+     */
+    public long getLeaseTime(String endpoint, long maxLeaseTime) {
+        long[] samples = getSortedSamples(endpoint);
+        if (samples.length < MIN_SAMPLES) {
+            return maxLeaseTime;
+        }
+        long leaseTime = percentile(samples, 0.99) * LEASE_MULTIPLIER
+                + LEASE_SAFETY_MARGIN_MILLIS;
+        return Math.min(Math.max(leaseTime, MIN_LEASE_TIME_MILLIS), maxLeaseTime);
+    }
+
+    // 중앙값 점유 시간, 샘플이 부족하면 0 (알 수 없음)
+    public long getExpectedHoldTime(String endpoint) {
+        long[] samples = getSortedSamples(endpoint);
+        if (samples.length < MIN_SAMPLES) {
+            return 0L;
+        }
+        return percentile(samples, 0.50);
+    }
+
+    private long[] getSortedSamples(String endpoint) {
+        HoldTimeWindow window = windows.get(endpoint);
+        if (window == null) {
+            return new long[0];
+        }
+        long[] samples = window.snapshot();
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private static class HoldTimeWindow {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int next;
+        private int size;
+
+        synchronized void add(long holdTimeMillis) {
+            samples[next] = holdTimeMillis;
+            next = (next + 1) % WINDOW_SIZE;
+            size = Math.min(size + 1, WINDOW_SIZE);
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(samples, size);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 락 경합 지표
+ * - account.lock.wait / account.lock.hold : 엔드포인트별 락 대기/점유 시간
+ * - account.lock.rejected : ACCOUNT_TRANSACTION_LOCK 으로 거절된 횟수
+ * - account.lock.optimistic.retry : 낙관적 락 버전 충돌로 재시도한 횟수
+ * - 경합이 심한 계좌 top-K (actuator lockcontention 엔드포인트)
+ */
+@Component
+public class LockMetrics {
+    private static final int HOT_ACCOUNT_CAPACITY = 100;
+    // 이보다 오래 기다린 락 획득은 경합으로 보고 hot account 에 반영한다.
+    private static final long CONTENDED_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MeterRegistry meterRegistry;
+    private final HotAccountSketch hotAccountSketch =
+            new HotAccountSketch(HOT_ACCOUNT_CAPACITY);
+
+    public LockMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordWait(String endpoint, String accountNumber, long waitNanos) {
+        waitTimer(endpoint).record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos >= CONTENDED_WAIT_NANOS) {
+            hotAccountSketch.add(accountNumber);
+        }
+    }
+
+    public void recordHold(String endpoint, long holdNanos) {
+        Timer.builder("account.lock.hold")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(holdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRejected(String endpoint, String accountNumber, long waitNanos) {
+        waitTimer(endpoint).record(waitNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("account.lock.rejected")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .increment();
+        hotAccountSketch.add(accountNumber);
+    }
+
+    public void recordOptimisticRetry(String endpoint, String accountNumber) {
+        Counter.builder("account.lock.optimistic.retry")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .increment();
+        hotAccountSketch.add(accountNumber);
+    }
+
+    public List<HotAccountSketch.HotAccount> getHotAccounts(int limit) {
+        return hotAccountSketch.top(limit);
+    }
+
+    private Timer waitTimer(String endpoint) {
+        return Timer.builder("account.lock.wait")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
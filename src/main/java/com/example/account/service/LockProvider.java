@@ -0,0 +1,28 @@
+package com.example.account.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 락을 실제로 잡아주는 구현체의 SPI
+ * account.lock.provider 설정(redis, memory, jdbc)으로 구현체를 선택한다.
+ */
+public interface LockProvider {
+    /**
+     * waitTime 동안 락 획득을 시도하고, 획득하면 leaseTime 후 자동으로 풀린다.
+     * 락의 소유자는 현재 스레드이다.
+     */
+    boolean tryLock(String key, long waitTime, long leaseTime, TimeUnit unit)
+            throws InterruptedException;
+
+    void unlock(String key);
+
+    /**
+     * 호출 스레드를 막지 않고 락 획득을 시도한다.
+     * 완료 스레드가 달라질 수 있으므로 스레드 대신 ownerId 가 락의 소유자가 된다.
+     */
+    CompletableFuture<Boolean> tryLockAsync(
+            String key, long ownerId, long waitTime, long leaseTime, TimeUnit unit);
+
+    CompletableFuture<Void> unlockAsync(String key, long ownerId);
+}
@@ -4,38 +4,241 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    private static final long WAIT_TIME_MILLIS = 1000L;
+    private static final long LEASE_TIME_MILLIS = 15000L;
+
+    private final LockProvider lockProvider;
+
+    // 같은 JVM 안의 요청은 계좌별 로컬 락에서 먼저 줄을 세워서
+    // 계좌당 노드 하나에 한 요청만 분산 락(Redis 등)을 두고 경쟁하도록 한다.
+    // 잡고 있거나 기다리는 요청이 없어지면 map 에서 지운다.
+    private final ConcurrentMap<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+
+    // 비동기 락의 소유자 id. 스레드 id 와 겹치지 않도록 음수를 사용한다.
+    private final AtomicLong asyncOwnerSequence = new AtomicLong();
+
+    @Value("${account.lock.local-tier-enabled:true}")
+    private boolean localTierEnabled = true;
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        lock(accountNumber, WAIT_TIME_MILLIS, LEASE_TIME_MILLIS, 0L);
+    }
+
+    /**
+     * expectedHoldTimeMillis 가 주어지면(0 보다 크면) 로컬 대기열 길이로 예상 대기 시간을 계산해서
+     * waitTimeMillis 안에 차례가 오지 않을 요청은 기다리지 않고 바로 실패시킨다.
+     */
+    public void lock(String accountNumber, long waitTimeMillis,
+                     long leaseTimeMillis, long expectedHoldTimeMillis) {
         log.debug("Trying lock for accountNumber : {}", accountNumber);
+        long startedAt = System.nanoTime();
+
+        lockLocal(accountNumber, waitTimeMillis, expectedHoldTimeMillis);
+        try {
+            long remainingWait = waitTimeMillis -
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            lockRemote(accountNumber, Math.max(remainingWait, 0L), leaseTimeMillis);
+        } catch (RuntimeException e) {
+            unlockLocal(accountNumber);
+            throw e;
+        }
+    }
+
+    /**
+     * 락을 잡은 작업(커밋 포함) 은 이미 끝난 뒤이므로 해제 실패는 호출자에게 던지지 않는다.
+     * (leaseTime 이 먼저 지나서 다른 요청이 락을 가져간 경우 Redisson 은 IllegalMonitorStateException)
+     */
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {} ", accountNumber);
+        try {
+            lockProvider.unlock(getLockKey(accountNumber));
+        } catch (RuntimeException e) {
+            log.error("Unlock failed for accountNumber : {}, lease may have expired",
+                    accountNumber, e);
+        } finally {
+            unlockLocal(accountNumber);
+        }
+    }
+
+    /**
+     * 여러 계좌를 계좌번호 순서대로 잠근다.
+     * 로컬 락도 계좌마다 따로 있으므로 로컬 락, 분산 락 모두 계좌번호 순서로 잡히고,
+     * 모든 요청이 같은 순서로 잠그므로 서로 상대의 락을 기다리는 교착 상태가 생기지 않는다.
+     * 잠그는 계좌가 많아도 다른 계좌의 요청은 막지 않는다.
+     * 하나라도 실패하면 이미 잡은 락을 풀고 실패한다.
+     */
+    public List<String> lockAll(Collection<String> accountNumbers,
+                                long waitTimeMillis, long leaseTimeMillis) {
+        List<String> ordered = accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeMillis);
+
+        List<String> locked = new ArrayList<>(ordered.size());
+        try {
+            for (String accountNumber : ordered) {
+                long remainingWait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                lock(accountNumber, Math.max(remainingWait, 0L), leaseTimeMillis, 0L);
+                locked.add(accountNumber);
+            }
+        } catch (RuntimeException e) {
+            unlockAll(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    // lockAll 이 돌려준 순서의 역순으로 푼다.
+    public void unlockAll(List<String> lockedAccountNumbers) {
+        for (int i = lockedAccountNumbers.size() - 1; i >= 0; i--) {
+            try {
+                unlock(lockedAccountNumbers.get(i));
+            } catch (RuntimeException e) {
+                log.error("Unlock failed for accountNumber : {}",
+                        lockedAccountNumbers.get(i), e);
+            }
+        }
+    }
+
+    public long newAsyncOwnerId() {
+        return -asyncOwnerSequence.incrementAndGet();
+    }
+
+    /**
+     * 대기 중에 호출 스레드를 점유하지 않는 락 획득
+     * 로컬 tier 는 스레드에 묶인 락이라 비동기 경로에서는 분산 락만 사용한다.
+     */
+    public CompletableFuture<Void> lockAsync(String accountNumber, long ownerId) {
+        log.debug("Trying async lock for accountNumber : {}", accountNumber);
 
+        return lockProvider.tryLockAsync(getLockKey(accountNumber), ownerId,
+                        WAIT_TIME_MILLIS, LEASE_TIME_MILLIS, TimeUnit.MILLISECONDS)
+                .thenAccept(isLock -> {
+                    if (!isLock) {
+                        log.error("=======Lock acquisition failed=======");
+                        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                    }
+                });
+    }
+
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        log.debug("Async unlock for accountNumber : {} ", accountNumber);
+        return lockProvider.unlockAsync(getLockKey(accountNumber), ownerId);
+    }
+
+    private void lockLocal(String accountNumber, long waitTimeMillis,
+                           long expectedHoldTimeMillis) {
+        if (!localTierEnabled) {
+            return;
+        }
+
+        ReentrantLock localLock = retainLocalLock(accountNumber);
+        boolean isLock = false;
         try {
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
+            if (isQueueTooDeep(localLock, waitTimeMillis, expectedHoldTimeMillis)) {
+                log.error("=======Lock queue too deep, fail fast=======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            isLock = localLock.tryLock(waitTimeMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!isLock) {
+                releaseLocalLock(accountNumber);
+            }
+        }
+
+        if (!isLock) {
+            log.error("=======Local lock acquisition failed=======");
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private static boolean isQueueTooDeep(ReentrantLock localLock,
+                                          long waitTimeMillis,
+                                          long expectedHoldTimeMillis) {
+        if (expectedHoldTimeMillis <= 0 || localLock.isHeldByCurrentThread()) {
+            return false;
+        }
+        int ahead = localLock.getQueueLength() + (localLock.isLocked() ? 1 : 0);
+        return ahead * expectedHoldTimeMillis > waitTimeMillis;
+    }
+
+    private void lockRemote(String accountNumber, long waitTimeMillis,
+                            long leaseTimeMillis) {
+        try {
+            boolean isLock = lockProvider.tryLock(getLockKey(accountNumber),
+                    waitTimeMillis, leaseTimeMillis, TimeUnit.MILLISECONDS);
             if (!isLock) {
                 log.error("=======Lock acquisition failed=======");
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
         } catch (AccountException e) {
             throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Distributed lock interrupted", e);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         } catch (Exception e) {
-            log.error("Redis lock failed", e);
+            // 락 저장소(Redis, DB) 장애로 락을 잡았는지 모르면 락 없이 진행하지 않는다.
+            log.error("Distributed lock failed", e);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }
     }
 
-    public void unlock(String accountNumber) {
-        log.debug("Unlock for accountNumber : {} ", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    private void unlockLocal(String accountNumber) {
+        if (!localTierEnabled) {
+            return;
+        }
+        LocalLock localLock = localLocks.get(accountNumber);
+        if (localLock != null && localLock.lock.isHeldByCurrentThread()) {
+            localLock.lock.unlock();
+            releaseLocalLock(accountNumber);
+        }
+    }
+
+    // 락을 기다리기 전에 참조 수를 올려서, 기다리는 동안 map 에서 지워지지 않게 한다.
+    private ReentrantLock retainLocalLock(String accountNumber) {
+        return localLocks.compute(accountNumber, (key, localLock) -> {
+            LocalLock retained = localLock == null ? new LocalLock() : localLock;
+            retained.references++;
+            return retained;
+        }).lock;
+    }
+
+    private void releaseLocalLock(String accountNumber) {
+        localLocks.computeIfPresent(accountNumber,
+                (key, localLock) -> --localLock.references == 0 ? null : localLock);
+    }
+
+    int getLocalLockCount() {
+        return localLocks.size();
+    }
+
+    private static class LocalLock {
+        // fair 락으로 먼저 온 요청이 먼저 분산 락을 시도하게 한다.
+        private final ReentrantLock lock = new ReentrantLock(true);
+        // 잡고 있거나 기다리는 횟수 (compute 안에서만 바꾼다)
+        private int references;
     }
 
     private static String getLockKey(String accountNumber) {
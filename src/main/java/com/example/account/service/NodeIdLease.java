@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * account.transaction-id.node-id 가 설정되지 않은 노드에 Redis 로 거래 id 노드 번호를 빌려준다.
+ * 비어 있는 TXID:NODE:{n} 키를 SET NX 로 선점하고, 살아 있는 동안 ttl 의 1/3 마다 연장한다.
+ * 노드가 죽으면 ttl 이 지난 뒤에 다른 노드가 같은 번호를 쓸 수 있다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.provider",
+        havingValue = "redis", matchIfMissing = true)
+public class NodeIdLease {
+    private static final String KEY_PREFIX = "TXID:NODE:";
+
+    // 내 토큰일 때만 연장/삭제한다.
+    private static final String REFRESH_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final RedissonClient redissonClient;
+    private final Duration ttl;
+    private final String token = UUID.randomUUID().toString();
+    private final ScheduledExecutorService refresher;
+
+    private long nodeId = -1L;
+
+    public NodeIdLease(
+            RedissonClient redissonClient,
+            @Value("${account.transaction-id.node-lease-ttl:30s}") Duration ttl
+    ) {
+        this.redissonClient = redissonClient;
+        this.ttl = ttl;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void acquire() {
+        for (long candidate = 0; candidate <= TransactionIdGenerator.MAX_NODE_ID; candidate++) {
+            if (redissonClient.getBucket(getKey(candidate), StringCodec.INSTANCE)
+                    .trySet(token, ttl.toMillis(), TimeUnit.MILLISECONDS)) {
+                nodeId = candidate;
+                break;
+            }
+        }
+        if (nodeId < 0) {
+            throw new IllegalStateException("No transaction id node id is available in Redis");
+        }
+        log.info("Leased transaction id node id : {}", nodeId);
+
+        long intervalMillis = Math.max(ttl.toMillis() / 3, 1L);
+        refresher.scheduleAtFixedRate(this::refresh,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void release() {
+        refresher.shutdownNow();
+        if (nodeId < 0) {
+            return;
+        }
+        try {
+            eval(RELEASE_SCRIPT, token);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release node id lease : {}", nodeId, e);
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    private void refresh() {
+        try {
+            if (!eval(REFRESH_SCRIPT, token, String.valueOf(ttl.toMillis()))
+                    && !redissonClient.getBucket(getKey(nodeId), StringCodec.INSTANCE)
+                    .trySet(token, ttl.toMillis(), TimeUnit.MILLISECONDS)) {
+                // 연장이 늦어 다른 노드가 같은 번호를 가져갔다. 거래 id 가 겹칠 수 있다.
+                log.error("Transaction id node id {} was taken by another node", nodeId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh node id lease : {}", nodeId, e);
+        }
+    }
+
+    private boolean eval(String script, Object... args) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, script, RScript.ReturnType.INTEGER,
+                List.<Object>of(getKey(nodeId)), args);
+        return result != null && result > 0;
+    }
+
+    private static String getKey(long nodeId) {
+        return KEY_PREFIX + nodeId;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.provider",
+        havingValue = "redis", matchIfMissing = true)
+public class RedissonLockProvider implements LockProvider {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public boolean tryLock(String key, long waitTime, long leaseTime, TimeUnit unit)
+            throws InterruptedException {
+        return redissonClient.getLock(key).tryLock(waitTime, leaseTime, unit);
+    }
+
+    @Override
+    public void unlock(String key) {
+        redissonClient.getLock(key).unlock();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(
+            String key, long ownerId, long waitTime, long leaseTime, TimeUnit unit) {
+        return redissonClient.getLock(key)
+                .tryLockAsync(waitTime, leaseTime, unit, ownerId)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        return redissonClient.getLock(key)
+                .unlockAsync(ownerId)
+                .toCompletableFuture();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.account.service;
+
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransactionSavedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 거래 id -> 거래 조회 응답 의 프로세스 내부 캐시
+ * 저장된 거래는 바뀌지 않으므로 무효화 없이 크기로만 제한한다.
+ * 저장(커밋 후) 과 조회 때 채운다.
+ */
+@Component
+public class TransactionCache {
+    private final Cache<String, QueryTransactionResponse> transactions;
+
+    public TransactionCache(
+            @Value("${account.cache.transaction-max-size:100000}") long maxSize
+    ) {
+        this.transactions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public Optional<QueryTransactionResponse> getTransaction(String transactionId) {
+        return Optional.ofNullable(transactions.getIfPresent(transactionId));
+    }
+
+    // 없으면 loader 로 읽어서 넣는다. loader 의 예외(TRANSACTION_NOT_FOUND 등) 는 캐시하지 않는다.
+    public QueryTransactionResponse getTransaction(
+            String transactionId, Function<String, QueryTransactionResponse> loader) {
+        return transactions.get(transactionId, loader);
+    }
+
+    public void putTransaction(QueryTransactionResponse transaction) {
+        transactions.put(transaction.getTransactionId(), transaction);
+    }
+
+    /**
+     * 같은 거래 id 의 응답은 항상 같으므로 id 로 strong ETag 를 만든다.
+     * (저장할 때 transactedAt 을 DB 정밀도(마이크로초) 로 잘라 두므로 저장 직후 캐시한 응답과
+     * DB 에서 읽은 응답의 바이트가 같다.)
+     */
+    public static String getETag(String transactionId) {
+        return "\"" + transactionId + "\"";
+    }
+
+    // 롤백된 거래를 캐시하지 않도록 커밋 이후에만 반영한다.
+    @TransactionalEventListener
+    public void onTransactionSaved(TransactionSavedEvent event) {
+        putTransaction(event.getTransaction());
+    }
+}
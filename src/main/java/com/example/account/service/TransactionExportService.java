@@ -0,0 +1,104 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountMetadata;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+
+/**
+ * 계좌의 거래 내역을 NDJSON/CSV 로 내보낸다.
+ * DB 커서에서 한 건씩 읽어서 바로 응답에 쓰고, 주기적으로 영속성 컨텍스트를 비워서
+ * 건수와 상관없이 메모리 사용량이 일정하다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final int CLEAR_INTERVAL = 500;
+    private static final LocalDateTime MIN_TRANSACTED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TRANSACTED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER =
+            "transactionId,transactionType,transactionResult,amount,balanceSnapshot,transactedAt\n";
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // 응답을 쓰기 전에 계좌를 확인해서 없는 계좌는 일반 에러 응답으로 돌려준다.
+    public Long getAccountId(String accountNumber) {
+        return accountCache.getAccount(accountNumber)
+                .map(AccountMetadata::getId)
+                .orElseGet(() -> accountRepository.findByAccountNumber(accountNumber)
+                        .map(account -> {
+                            accountCache.putAccount(AccountMetadata.fromEntity(account));
+                            return account.getId();
+                        })
+                        .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND)));
+    }
+
+    /**
+     * [from, to) 구간의 거래를 오래된 순서로 outputStream 에 쓰고 쓴 건수를 돌려준다.
+     * from, to 가 없으면 전체 기간
+     */
+    @Transactional(readOnly = true)
+    public long export(Long accountId, LocalDateTime from, LocalDateTime to,
+                       ExportFormat format, OutputStream outputStream) throws IOException {
+        if (format == ExportFormat.CSV) {
+            outputStream.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long count = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamByAccountId(
+                accountId,
+                from == null ? MIN_TRANSACTED_AT : from,
+                to == null ? MAX_TRANSACTED_AT : to)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                TransactionHistoryItem item = TransactionHistoryItem.fromEntity(iterator.next());
+                outputStream.write(format == ExportFormat.CSV ? toCsv(item) : toNdjson(item));
+
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+        log.debug("Exported {} transactions of account id : {}", count, accountId);
+        return count;
+    }
+
+    private byte[] toNdjson(TransactionHistoryItem item) throws IOException {
+        return (objectMapper.writeValueAsString(item) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 모든 값이 영숫자/enum/숫자/시각이라 따옴표 처리가 필요 없다.
+    private static byte[] toCsv(TransactionHistoryItem item) {
+        return (item.getTransactionId() + ","
+                + item.getTransactionType() + ","
+                + item.getTransactionResult() + ","
+                + item.getAmount() + ","
+                + item.getBalanceSnapshot() + ","
+                + item.getTransactedAt() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake 형식의 시간순 거래 id 생성기 (41bit 시간(ms) | 10bit 노드 | 12bit 순번)
+ * 락 없이 CAS 한 번으로 만들고 객체를 할당하지 않는다.
+ * 같은 ms 에 순번이 넘치거나 시계가 뒤로 가면 직전 값에서 이어서 증가시켜 항상 단조 증가한다.
+ *
+ * 노드 번호가 겹치면 같은 ms 에 같은 id 가 나오므로 노드마다 달라야 한다.
+ * - account.transaction-id.node-id 가 있으면 그 값을 쓴다.
+ * - 없으면 redis provider 는 NodeIdLease 로 Redis 에서 빌리고, memory provider(단일 노드) 는 0 을 쓴다.
+ * - jdbc provider 는 빌릴 곳이 없으므로 node-id 를 반드시 설정해야 한다.
+ */
+@Slf4j
+@Component
+public class TransactionIdGenerator {
+    private static final long EPOCH_MILLIS = Instant.parse("2023-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long NODE_ID_NOT_SET = -1L;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    // (시간 << SEQUENCE_BITS) | 순번
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public TransactionIdGenerator(
+            @Value("${account.transaction-id.node-id:" + NODE_ID_NOT_SET + "}") long nodeId,
+            @Value("${account.lock.provider:redis}") String lockProvider,
+            ObjectProvider<NodeIdLease> nodeIdLease) {
+        this(resolveNodeId(nodeId, lockProvider, nodeIdLease));
+    }
+
+    public TransactionIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException(
+                    "account.transaction-id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    private static long resolveNodeId(long nodeId, String lockProvider,
+                                      ObjectProvider<NodeIdLease> nodeIdLease) {
+        if (nodeId != NODE_ID_NOT_SET) {
+            return nodeId;
+        }
+        NodeIdLease lease = nodeIdLease.getIfAvailable();
+        if (lease != null) {
+            return lease.getNodeId();
+        }
+        if ("memory".equals(lockProvider)) {
+            log.info("account.transaction-id.node-id is not set, using 0 for single node");
+            return 0L;
+        }
+        throw new IllegalStateException("account.transaction-id.node-id is required with the "
+                + lockProvider + " lock provider (must differ between nodes)");
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long next = now > (last >>> SEQUENCE_BITS)
+                    ? now << SEQUENCE_BITS
+                    : last + 1;
+
+            if (lastState.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 계좌번호 해시로 고정된 단일 스레드 lane 에 작업을 넘기는 single-writer 실행기
+ * 같은 계좌의 작업은 항상 같은 lane 에서 들어온 순서대로 실행되므로 노드 안에서는 계좌 락을 두고 경쟁하지 않는다.
+ * 동기 API, 다른 노드와의 배타는 작업 안에서 잡는 계좌 락(AsyncTransactionService) 이 맡는다.
+ */
+@Slf4j
+@Component
+public class TransactionSequencer {
+    private final ExecutorService[] lanes;
+
+    public TransactionSequencer(
+            @Value("${account.transaction.sequencer.lanes:16}") int laneCount,
+            @Value("${account.transaction.sequencer.queue-capacity:1000}") int queueCapacity
+    ) {
+        lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "transaction-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String accountNumber, Supplier<T> action) {
+        try {
+            return CompletableFuture.supplyAsync(action, getLane(accountNumber));
+        } catch (RejectedExecutionException e) {
+            // lane 이 가득 찬 경우는 락 획득 실패와 같게 취급한다.
+            log.error("Transaction lane is full for accountNumber : {}", accountNumber);
+            return CompletableFuture.failedFuture(
+                    new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        }
+    }
+
+    private ExecutorService getLane(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        hash ^= (hash >>> 16);
+        return lanes[Math.floorMod(hash, lanes.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -1,44 +1,92 @@
 package com.example.account.service;
 
 import com.example.account.domain.Account;
-import com.example.account.domain.AccountUser;
+import com.example.account.domain.AccountShard;
+import com.example.account.domain.BalanceHold;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountMetadata;
+import com.example.account.dto.AccountUserMetadata;
+import com.example.account.dto.BalanceHoldCreatedEvent;
+import com.example.account.dto.BalanceHoldDto;
+import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.dto.TransactionSavedEvent;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountShardRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.ErrorCode.*;
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountCache accountCache;
+    private final EntityManager entityManager;
+    private final BalanceHoldRepository balanceHoldRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountShardRepository accountShardRepository;
+
+    // 승인 후 매입/취소가 없으면 자동으로 잔액을 되돌리기까지의 시간
+    @Value("${account.hold.ttl:10m}")
+    private Duration holdTtl = Duration.ofMinutes(10);
+
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
-        AccountUser user = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                        .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        return applyUseBalance(userId, accountNumber, amount);
+    }
+
+    /**
+     * apply* 메서드는 트랜잭션을 직접 열지 않고 호출한 쪽의 트랜잭션 안에서 실행된다.
+     * 여러 요청을 하나의 트랜잭션으로 묶는 GroupCommitProcessor 에서 사용한다.
+     * (@Transactional 메서드를 안쪽에서 부르면 AccountException 한 번에 전체가 rollback-only 가 된다.)
+     */
+    public TransactionDto applyUseBalance(Long userId, String accountNumber, Long amount) {
+        AccountUserMetadata user = getAccountUser(userId);
+        validateUseBalance(user, accountNumber);
+        Account account = getAccount(accountNumber);
 
         validateUseBalance(user, account, amount);
 
@@ -48,13 +96,43 @@ public class TransactionService {
 
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
+    /**
+     * 캐시된 계좌 메타데이터로 소유자/상태/샤드 여부를 먼저 검증해서 거절될 요청은 계좌를 읽지 않는다.
+     * 해지, 샤드 전환은 되돌릴 수 없고 소유자는 바뀌지 않으므로 오래된 메타데이터로 잘못 거절하지 않는다.
+     * (캐시에 없거나 통과하면 락을 잡은 상태에서 읽은 계좌로 잔액과 함께 다시 검증한다.)
+     */
+    private void validateUseBalance(AccountUserMetadata user, String accountNumber) {
+        Optional<AccountMetadata> cached = accountCache.getAccount(accountNumber);
+        if (cached.isEmpty()) {
+            return;
+        }
+        AccountMetadata metadata = cached.get();
+        if (!Objects.equals(user.getId(), metadata.getOwnerId())) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (metadata.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (metadata.isSharded()) {
+            throw new AccountException(SHARDED_ACCOUNT_NOT_SUPPORTED);
+        }
+    }
+
+    /**
+     * 샤드 계좌의 잔액은 샤드에 있으므로 계좌 락으로 계좌 balance 에서 빼는 경로(이체 출금, 승인, 일괄 사용,
+     * 샤드 라우팅 전에 샤드 계좌가 된 사용 요청) 는 SHARDED_ACCOUNT_NOT_SUPPORTED 로 거절한다.
+     * 샤드 계좌의 사용은 AccountShardRouter 로만 처리한다. (입금은 계좌 balance 에 쌓였다가 재분배된다.)
+     */
+    private void validateUseBalance(AccountUserMetadata user, Account account, Long amount) {
         if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
             throw new AccountException(USER_ACCOUNT_UN_MATCH);
         }
         if (account.getAccountStatus() != AccountStatus.IN_USE) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
+        if (account.isSharded()) {
+            throw new AccountException(SHARDED_ACCOUNT_NOT_SUPPORTED);
+        }
         if (account.getBalance() < amount) {
             throw new AccountException(AMOUNT_EXCEED_BALANCE);
         }
@@ -62,36 +140,416 @@ public class TransactionService {
 
     @Transactional
     public void saveFailedUseTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        applyFailedUseTransaction(accountNumber, amount);
+    }
+
+    public TransactionDto applyFailedUseTransaction(String accountNumber, Long amount) {
+        Account account = getAccount(accountNumber);
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE, F, account, amount));
+    }
+
+    /**
+     * 여러 건의 잔액 사용을 하나의 트랜잭션으로 처리하고 요청 순서대로 결과를 돌려준다.
+     * 실패한 항목은 단건과 같이 실패 거래를 남기고, 나머지 항목은 계속 처리한다.
+     * (계좌 락은 LockAopAspect 에서 모든 계좌에 대해 미리 잡혀 있어야 한다.)
+     */
+    @Transactional
+    public List<TransactionDto> useBalanceBatch(List<UseBalance.Request> items) {
+        // 중간 flush 없이 커밋 때 insert 를 모아서 JDBC batch 로 보낸다.
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        preloadAccounts(items.stream()
+                .map(UseBalance.Request::getAccountNumber)
+                .collect(Collectors.toSet()));
+
+        List<TransactionDto> results = new ArrayList<>(items.size());
+        for (UseBalance.Request item : items) {
+            results.add(applyUseBalanceOrFailure(item));
+        }
+        return results;
+    }
+
+    private TransactionDto applyUseBalanceOrFailure(UseBalance.Request item) {
+        try {
+            return applyUseBalance(
+                    item.getUserId(), item.getAccountNumber(), item.getAmount());
+        } catch (AccountException e) {
+            TransactionDto failed;
+            try {
+                failed = applyFailedUseTransaction(item.getAccountNumber(), item.getAmount());
+            } catch (AccountException ignored) {
+                // 계좌가 없으면 실패 거래도 남길 수 없다.
+                failed = TransactionDto.builder()
+                        .accountNumber(item.getAccountNumber())
+                        .transactionType(USE)
+                        .transactionResultType(F)
+                        .amount(item.getAmount())
+                        .build();
+            }
+            failed.setErrorCode(e.getErrorCode());
+            return failed;
+        }
+    }
+
+    // 계좌를 한 번에 읽어서 영속성 컨텍스트와 AccountCache 에 올려둔다.
+    private void preloadAccounts(Set<String> accountNumbers) {
+        accountRepository.findByAccountNumberIn(accountNumbers)
+                .forEach(account -> accountCache.putAccount(AccountMetadata.fromEntity(account)));
+    }
+
+    /**
+     * 두 계좌의 출금/입금을 하나의 트랜잭션으로 처리하고 서로를 가리키는 거래 한 쌍을 남긴다.
+     * (두 계좌의 락은 LockAopAspect 에서 계좌번호 순서로 잡는다.)
+     */
+    @Transactional
+    public TransferDto transferBalance(
+            Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+            throw new AccountException(SAME_ACCOUNT_TRANSFER);
+        }
+        AccountUserMetadata user = getAccountUser(userId);
+        validateUseBalance(user, fromAccountNumber);
+        Account fromAccount = getAccount(fromAccountNumber);
+        Account toAccount = getAccount(toAccountNumber);
+
+        validateUseBalance(user, fromAccount, amount);
+        if (toAccount.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        fromAccount.useBalance(amount);
+        toAccount.depositBalance(amount);
+
+        long withdrawalKey = transactionIdGenerator.nextId();
+        long depositKey = transactionIdGenerator.nextId();
+        LocalDateTime transactedAt = now();
+
+        return TransferDto.builder()
+                .withdrawal(TransactionDto.fromEntity(saveTransferTransaction(
+                        TRANSFER_OUT, fromAccount, amount,
+                        withdrawalKey, depositKey, transactedAt)))
+                .deposit(TransactionDto.fromEntity(saveTransferTransaction(
+                        TRANSFER_IN, toAccount, amount,
+                        depositKey, withdrawalKey, transactedAt)))
+                .build();
+    }
+
+    @Transactional
+    public void saveFailedTransferTransaction(String fromAccountNumber, Long amount) {
+        Account account = getAccount(fromAccountNumber);
+
+        saveAndGetTransaction(TRANSFER_OUT, F, account, amount);
+    }
+
+    private Transaction saveTransferTransaction(
+            TransactionType transactionType, Account account, Long amount,
+            long transactionKey, long pairedTransactionKey, LocalDateTime transactedAt) {
+        return publishSaved(transactionRepository.save(
+                Transaction.builder()
+                        .transactionType(transactionType)
+                        .transactionResultType(S)
+                        .account(account)
+                        .amount(amount)
+                        .balanceSnapshot(account.getBalance())
+                        .transactionKey(transactionKey)
+                        .pairedTransactionKey(pairedTransactionKey)
+                        .transactedAt(transactedAt)
+                        .build()));
+    }
+
+    /**
+     * 승인 : 사용 가능 잔액(balance) 에서 금액을 빼서 묶어둔다.
+     * 락은 이 짧은 예약 동안만 잡고, 이후 매입/취소는 승인 건 단위로 처리한다.
+     */
+    @Transactional
+    public BalanceHoldDto authorizeBalance(Long userId, String accountNumber, Long amount) {
+        AccountUserMetadata user = getAccountUser(userId);
+        validateUseBalance(user, accountNumber);
+        Account account = getAccount(accountNumber);
+
+        validateUseBalance(user, account, amount);
+
+        account.useBalance(amount);
+
+        BalanceHold balanceHold = balanceHoldRepository.save(BalanceHold.builder()
+                .account(account)
+                .amount(amount)
+                .holdStatus(HoldStatus.HELD)
+                .holdKey(transactionIdGenerator.nextId())
+                .expiresAt(LocalDateTime.now().plus(holdTtl))
+                .build());
+
+        // 커밋 후에 만료 타이머를 건다. (BalanceHoldExpiryScheduler)
+        eventPublisher.publishEvent(new BalanceHoldCreatedEvent(
+                balanceHold.getHoldId(), accountNumber, balanceHold.getExpiresAt()));
+
+        return BalanceHoldDto.fromEntity(balanceHold);
+    }
+
+    /**
+     * 매입 : 잔액은 승인 때 이미 빠졌으므로 계좌 락 없이 승인 건 상태만 바꾸고 사용 거래를 남긴다.
+     */
+    @Transactional
+    public BalanceHoldDto captureBalance(String holdId, String accountNumber) {
+        BalanceHold balanceHold = getBalanceHold(holdId, accountNumber);
+        LocalDateTime now = LocalDateTime.now();
+        if (balanceHold.getExpiresAt().isBefore(now)) {
+            throw new AccountException(HOLD_EXPIRED);
+        }
+
+        settle(balanceHold, HoldStatus.CAPTURED, now);
+
+        Transaction transaction = saveAndGetTransaction(
+                USE, S, balanceHold.getAccount(), balanceHold.getAmount());
+
+        BalanceHoldDto balanceHoldDto = BalanceHoldDto.fromEntity(balanceHold);
+        balanceHoldDto.setTransactionId(transaction.getTransactionId());
+        return balanceHoldDto;
+    }
+
+    // 승인 취소 : 묶어둔 금액을 잔액에 되돌린다. (계좌 락 필요)
+    @Transactional
+    public BalanceHoldDto voidBalance(String holdId, String accountNumber) {
+        BalanceHold balanceHold = getBalanceHold(holdId, accountNumber);
+
+        settle(balanceHold, HoldStatus.VOIDED, LocalDateTime.now());
+        balanceHold.getAccount().depositBalance(balanceHold.getAmount());
+
+        return BalanceHoldDto.fromEntity(balanceHold);
+    }
+
+    // 만료 : 이미 매입/취소된 승인 건이면 아무것도 하지 않는다. (계좌 락 필요)
+    @Transactional
+    public void expireBalanceHold(String holdId) {
+        BalanceHold balanceHold = balanceHoldRepository.findByHoldId(holdId)
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+        if (balanceHold.getHoldStatus() != HoldStatus.HELD) {
+            return;
+        }
+        if (balanceHoldRepository.settle(balanceHold.getId(),
+                HoldStatus.EXPIRED, LocalDateTime.now()) == 0) {
+            return;
+        }
+        balanceHold.setHoldStatus(HoldStatus.EXPIRED);
+        balanceHold.getAccount().depositBalance(balanceHold.getAmount());
+    }
+
+    @Transactional
+    public List<BalanceHoldDto> getHeldBalanceHolds() {
+        return balanceHoldRepository.findByHoldStatus(HoldStatus.HELD).stream()
+                .map(BalanceHoldDto::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private BalanceHold getBalanceHold(String holdId, String accountNumber) {
+        BalanceHold balanceHold = balanceHoldRepository.findByHoldId(holdId)
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+        if (!Objects.equals(balanceHold.getAccount().getAccountNumber(), accountNumber)) {
+            throw new AccountException(HOLD_ACCOUNT_UN_MATCH);
+        }
+        if (balanceHold.getHoldStatus() != HoldStatus.HELD) {
+            throw new AccountException(HOLD_ALREADY_SETTLED);
+        }
+        return balanceHold;
+    }
+
+    // HELD 일 때만 바뀌므로 동시에 매입/취소/만료가 와도 하나만 성공한다.
+    private void settle(BalanceHold balanceHold, HoldStatus holdStatus, LocalDateTime now) {
+        if (balanceHoldRepository.settle(balanceHold.getId(), holdStatus, now) == 0) {
+            throw new AccountException(HOLD_ALREADY_SETTLED);
+        }
+        balanceHold.setHoldStatus(holdStatus);
+        balanceHold.setSettledAt(now);
+    }
+
+    /**
+     * 샤드 계좌의 잔액 사용 : 한 샤드에서만 뺀다.
+     * 계좌 락 대신 해당 샤드의 락을 AccountShardRouter 에서 잡는다.
+     */
+    @Transactional
+    public TransactionDto useShardBalance(
+            Long userId, String accountNumber, int shardIndex, Long amount) {
+        AccountUserMetadata user = getAccountUser(userId);
+        Account account = getAccount(accountNumber);
+
+        validateShardAccount(user, account);
+
+        getAccountShard(account, shardIndex).useBalance(amount);
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, account, amount));
+    }
+
+    /**
+     * 한 샤드로는 부족할 때 여러 샤드에서 나눠서 뺀다. (모든 샤드 락 필요)
+     */
+    @Transactional
+    public TransactionDto useBalanceAcrossShards(
+            Long userId, String accountNumber, Long amount) {
+        AccountUserMetadata user = getAccountUser(userId);
+        Account account = getAccount(accountNumber);
+
+        validateShardAccount(user, account);
+
+        List<AccountShard> shards =
+                accountShardRepository.findByAccountIdOrderByShardIndex(account.getId());
+        long shardBalance = shards.stream().mapToLong(AccountShard::getBalance).sum();
+        if (shardBalance < amount) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+
+        long remaining = amount;
+        for (AccountShard shard : shards) {
+            long debit = Math.min(remaining, shard.getBalance());
+            shard.useBalance(debit);
+            remaining -= debit;
+            if (remaining == 0) {
+                break;
+            }
+        }
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, account, amount));
+    }
+
+    // 샤드 계좌의 취소 : 원래 거래가 어느 샤드에서 빠졌는지와 상관없이 잡은 샤드에 되돌린다.
+    @Transactional
+    public TransactionDto cancelShardBalance(
+            String transactionId, String accountNumber, int shardIndex, Long amount) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+        Account account = getAccount(accountNumber);
+
+        validateCancelBalance(transaction, account, amount);
+
+        getAccountShard(account, shardIndex).depositBalance(amount);
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, S, account, amount));
+    }
+
+    /**
+     * 계좌 balance 에 쌓인 금액과 샤드 잔액을 합쳐서 모든 샤드에 고르게 다시 나눈다.
+     * (계좌 락과 모든 샤드 락 필요)
+     */
+    @Transactional
+    public void rebalanceShards(String accountNumber) {
+        Account account = getAccount(accountNumber);
+        if (!account.isSharded()) {
+            return;
+        }
+
+        List<AccountShard> shards =
+                accountShardRepository.findByAccountIdOrderByShardIndex(account.getId());
+        long total = account.getBalance()
+                + shards.stream().mapToLong(AccountShard::getBalance).sum();
+        long share = total / shards.size();
+        long remainder = total % shards.size();
+        for (AccountShard shard : shards) {
+            shard.setBalance(share + (shard.getShardIndex() < remainder ? 1 : 0));
+        }
+        if (account.getBalance() != 0) {
+            account.setBalance(0L);
+        }
+    }
+
+    private void validateShardAccount(AccountUserMetadata user, Account account) {
+        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    private AccountShard getAccountShard(Account account, int shardIndex) {
+        return accountShardRepository.findByAccountIdAndShardIndex(account.getId(), shardIndex)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    }
 
-        saveAndGetTransaction(USE, F, account, amount);
+    private AccountUserMetadata getAccountUser(Long userId) {
+        return accountCache.getAccountUser(userId).orElseGet(() -> {
+            AccountUserMetadata user = accountUserRepository.findById(userId)
+                    .map(AccountUserMetadata::fromEntity)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+            accountCache.putAccountUser(user);
+            return user;
+        });
+    }
+
+    /**
+     * 잔액은 락을 잡은 상태에서 읽어야 하므로 캐시는 계좌번호 -> id 와 사전 검증(validateUseBalance)에만 쓰고,
+     * 검증을 통과한 계좌는 트랜잭션마다 한 번 DB 에서 읽는다.
+     * id 로 조회하므로 같은 영속성 컨텍스트에 이미 있는 계좌는 다시 읽지 않는다.
+     * (GroupCommitProcessor, useBalanceBatch 의 배치에서는 실패 거래 기록도 같은 계좌를 쓴다.)
+     * 동기 API 의 실패 거래 기록은 롤백된 트랜잭션 다음의 새 트랜잭션이고,
+     * 잔액 스냅샷이 필요하므로 계좌를 한 번 더 읽는다.
+     */
+    private Account getAccount(String accountNumber) {
+        Optional<Account> cached = accountCache.getAccount(accountNumber)
+                .flatMap(metadata -> accountRepository.findById(metadata.getId()));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        accountCache.putAccount(AccountMetadata.fromEntity(account));
+        return account;
     }
 
     private Transaction saveAndGetTransaction(
             TransactionType transactionType,
             TransactionResultType transactionResultType,
             Account account, Long amount) {
-        return transactionRepository.save(
+        return publishSaved(transactionRepository.save(
                 Transaction.builder()
                         .transactionType(transactionType)
                         .transactionResultType(transactionResultType)
                         .account(account)
                         .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build());
+                        .balanceSnapshot(getBalanceSnapshot(account))
+                        .transactionKey(transactionIdGenerator.nextId())
+                        .transactedAt(now())
+                        .build()));
+    }
+
+    // 커밋 후에 조회 응답 캐시(TransactionCache) 에 넣도록 이벤트를 발행한다.
+    private Transaction publishSaved(Transaction transaction) {
+        eventPublisher.publishEvent(new TransactionSavedEvent(
+                QueryTransactionResponse.from(TransactionDto.fromEntity(transaction))));
+        return transaction;
+    }
+
+    /**
+     * 거래 시각은 DB 컬럼(timestamp, 마이크로초) 정밀도로 잘라서 저장한다.
+     * 커밋 후 TransactionCache 에 넣는 응답과 DB 에서 다시 읽은 응답이 같아야 ETag 가 맞는다.
+     */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * 샤드 계좌는 샤드 잔액까지 더한 전체 잔액을 남긴다.
+     * 다른 샤드는 잠그지 않은 상태로 읽으므로 동시에 처리된 거래에 따라 조금 다를 수 있다.
+     */
+    private Long getBalanceSnapshot(Account account) {
+        if (!account.isSharded()) {
+            return account.getBalance();
+        }
+        return account.getBalance()
+                + accountShardRepository.sumBalanceByAccountId(account.getId());
     }
 
     @Transactional
     public TransactionDto cancelBalance(
             String transactionId, String accountNumber, Long amount) {
+        return applyCancelBalance(transactionId, accountNumber, amount);
+    }
+
+    public TransactionDto applyCancelBalance(
+            String transactionId, String accountNumber, Long amount) {
 
         Transaction transaction = transactionRepository.findByTransactionId(transactionId)
                 .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        Account account = getAccount(accountNumber);
 
         validateCancelBalance(transaction, account, amount);
 
@@ -105,6 +563,10 @@ public class TransactionService {
     private void validateCancelBalance(
             Transaction transaction, Account account, Long amount)
     {
+        if (transaction.getTransactionType() == TRANSFER_OUT
+                || transaction.getTransactionType() == TRANSFER_IN) {
+            throw new AccountException(TRANSFER_NOT_CANCELLABLE);
+        }
         if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
             throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
         }
@@ -118,12 +580,57 @@ public class TransactionService {
 
     @Transactional
     public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        applyFailedCancelTransaction(accountNumber, amount);
+    }
+
+    public TransactionDto applyFailedCancelTransaction(String accountNumber, Long amount) {
+        Account account = getAccount(accountNumber);
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, F, account, amount));
+    }
+
+    /**
+     * 계좌의 거래 내역을 최신 거래부터 size 건씩 돌려준다.
+     * cursor 는 이전 페이지의 nextCursor 이고, size + 1 건을 읽어서 다음 페이지가 있는지 확인한다.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistory.Response getTransactionHistory(
+            String accountNumber, String cursor, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        Long accountId = getAccountId(accountNumber);
+        PageRequest page = PageRequest.of(0, size + 1);
+
+        List<TransactionHistoryItem> items;
+        if (cursor == null) {
+            items = transactionRepository.findHistory(accountId, page);
+        } else {
+            TransactionHistory.Cursor position = TransactionHistory.Cursor.decode(cursor);
+            items = transactionRepository.findHistoryBefore(accountId,
+                    position.getTransactedAt(), position.getId(), page);
+        }
+
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = TransactionHistory.Cursor.of(items.get(size - 1)).encode();
+        }
+        return TransactionHistory.Response.builder()
+                .accountNumber(accountNumber)
+                .transactions(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        saveAndGetTransaction(CANCEL, F, account, amount);
+    // 캐시에 있으면 계좌를 읽지 않고 id 만 쓴다.
+    private Long getAccountId(String accountNumber) {
+        return accountCache.getAccount(accountNumber)
+                .map(AccountMetadata::getId)
+                .orElseGet(() -> getAccount(accountNumber).getId());
     }
 
+    @Transactional(readOnly = true)
     public TransactionDto queryTransaction(String transactionId) {
         return TransactionDto.fromEntity(
                 transactionRepository.findByTransactionId(transactionId)
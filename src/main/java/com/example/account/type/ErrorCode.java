@@ -19,7 +19,19 @@ public enum ErrorCode {
     USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 다릅니다."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
-    MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개 입니다.");
+    MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개 입니다."),
+    ACCOUNT_NUMBER_EXHAUSTED("발급 가능한 계좌번호가 없습니다."),
+    ACCOUNT_NUMBER_NOT_READY("계좌번호를 준비하지 못했습니다. 잠시 후 다시 시도해 주세요."),
+    DUPLICATE_REQUEST_IN_PROGRESS("같은 요청이 아직 처리 중입니다."),
+    IDEMPOTENCY_KEY_REUSED("같은 Idempotency-Key 로 다른 요청을 보낼 수 없습니다."),
+    SAME_ACCOUNT_TRANSFER("같은 계좌로는 이체할 수 없습니다."),
+    TRANSFER_NOT_CANCELLABLE("이체 거래는 취소할 수 없습니다."),
+    HOLD_NOT_FOUND("해당 승인 건이 없습니다."),
+    HOLD_ACCOUNT_UN_MATCH("이 승인 건은 해당 계좌의 승인 건이 아닙니다."),
+    HOLD_ALREADY_SETTLED("이미 매입/취소된 승인 건입니다."),
+    HOLD_EXPIRED("만료된 승인 건입니다."),
+    ACCOUNT_ALREADY_SHARDED("이미 샤드 계좌입니다."),
+    SHARDED_ACCOUNT_NOT_SUPPORTED("샤드 계좌에서는 지원하지 않는 거래입니다.");
 
     private final String description;
 
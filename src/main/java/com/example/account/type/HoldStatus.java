@@ -0,0 +1,12 @@
+package com.example.account.type;
+
+public enum HoldStatus {
+    // 승인되어 잔액이 묶여 있는 상태
+    HELD,
+    // 매입 완료 (사용 거래로 기록됨)
+    CAPTURED,
+    // 승인 취소로 잔액 복원
+    VOIDED,
+    // 만료되어 자동으로 잔액 복원
+    EXPIRED
+}
@@ -0,0 +1,8 @@
+package com.example.account.type;
+
+public enum LockStrategy {
+    // 분산 락(LockService)을 잡고 실행
+    DISTRIBUTED,
+    // 락 없이 실행하고 Account 의 @Version 충돌 시 재시도
+    OPTIMISTIC
+}
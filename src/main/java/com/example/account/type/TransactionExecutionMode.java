@@ -0,0 +1,11 @@
+package com.example.account.type;
+
+public enum TransactionExecutionMode {
+    // 계좌 락(LockService)을 잡고 transactionExecutor 에서 실행
+    LOCK,
+    // 계좌번호로 정해진 단일 스레드 lane 에서 순서대로 실행
+    // lane 은 이 노드의 같은 계좌 요청만 줄 세우므로 동기 API, 다른 노드와의 배타를 위해 계좌 락도 잡는다.
+    SEQUENCER,
+    // 몇 ms 동안 모은 요청을 하나의 DB 트랜잭션으로 커밋 (GroupCommitProcessor)
+    GROUP_COMMIT
+}
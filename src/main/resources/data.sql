@@ -7,4 +7,4 @@ values (3, 'Eddie', now(), now());
 insert into account_user(id, name, created_at, updated_at)
 values (4, 'Krystal', now(), now());
 insert into account_user(id, name, created_at, updated_at)
-values (5, 'Zerobase', now(), now());
\ No newline at end of file
+values (5, 'Zerobase', now(), now());
@@ -0,0 +1,110 @@
+-- 엔티티마다 시퀀스 하나 (PooledSequenceGenerator, increment = account.id.allocation-size)
+create sequence account_user_seq start with 1 increment by 50;
+create sequence account_seq start with 1 increment by 50;
+create sequence account_shard_seq start with 1 increment by 50;
+create sequence account_number_block_seq start with 1 increment by 50;
+create sequence balance_hold_seq start with 1 increment by 50;
+create sequence transaction_seq start with 1 increment by 50;
+
+create table account_user (
+    id bigint not null,
+    created_at timestamp,
+    updated_at timestamp,
+    name varchar(255),
+    primary key (id)
+);
+
+create table account (
+    id bigint not null,
+    created_at timestamp,
+    updated_at timestamp,
+    account_user_id bigint,
+    account_number varchar(255),
+    account_status varchar(255),
+    balance bigint,
+    registered_at timestamp,
+    un_registered_at timestamp,
+    version bigint,
+    shard_count integer,
+    primary key (id)
+);
+
+create table account_shard (
+    id bigint not null,
+    created_at timestamp,
+    updated_at timestamp,
+    account_id bigint,
+    shard_index integer,
+    balance bigint,
+    primary key (id)
+);
+
+create table account_number_block (
+    id bigint not null,
+    created_at timestamp,
+    updated_at timestamp,
+    block_size integer,
+    primary key (id)
+);
+
+create table balance_hold (
+    id bigint not null,
+    created_at timestamp,
+    updated_at timestamp,
+    account_id bigint,
+    amount bigint,
+    hold_status varchar(255),
+    hold_key bigint not null,
+    expires_at timestamp,
+    settled_at timestamp,
+    primary key (id)
+);
+
+create table transaction (
+    id bigint not null,
+    created_at timestamp,
+    updated_at timestamp,
+    transaction_type varchar(255),
+    transaction_result_type varchar(255),
+    account_id bigint,
+    amount bigint,
+    balance_snapshot bigint,
+    transaction_key bigint not null,
+    transacted_at timestamp,
+    paired_transaction_key bigint,
+    primary key (id)
+);
+
+-- DB 락 (account.lock.provider=jdbc, JdbcLockProvider)
+create table account_lock (
+    lock_key varchar(64) not null,
+    owner varchar(64) not null,
+    locked_until timestamp not null,
+    primary key (lock_key)
+);
+
+-- 요청마다 조회하는 키
+create unique index uk_account_account_number on account (account_number);
+create unique index uk_transaction_transaction_key on transaction (transaction_key);
+create unique index uk_balance_hold_hold_key on balance_hold (hold_key);
+create unique index uk_account_shard_account_shard_index on account_shard (account_id, shard_index);
+
+-- 사용자별 계좌 목록 / 계좌 수 (account_user_id 만 쓰는 조회도 이 인덱스를 쓴다)
+create index idx_account_user_status on account (account_user_id, account_status);
+-- 주기적인 샤드 재분배 대상 (shard_count > 1)
+create index idx_account_shard_count on account (shard_count);
+-- 계좌별 거래 내역 keyset 페이지 / 내보내기 (account_id 만 쓰는 조회도 이 인덱스를 쓴다)
+create index idx_transaction_account_transacted_at on transaction (account_id, transacted_at, id);
+-- 재시작 때 HELD 상태인 승인 건을 다시 읽는다.
+create index idx_balance_hold_status on balance_hold (hold_status);
+create index idx_balance_hold_account on balance_hold (account_id);
+
+-- 외래 키는 인덱스를 만든 뒤에 걸어서 위 인덱스를 그대로 쓰게 한다.
+alter table account
+    add constraint fk_account_account_user foreign key (account_user_id) references account_user (id);
+alter table account_shard
+    add constraint fk_account_shard_account foreign key (account_id) references account (id);
+alter table balance_hold
+    add constraint fk_balance_hold_account foreign key (account_id) references account (id);
+alter table transaction
+    add constraint fk_transaction_account foreign key (account_id) references account (id);
@@ -0,0 +1,109 @@
+package com.example.account.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// primary, replica 를 서로 다른 H2 메모리 DB 로 띄워서 어느 쪽에서 읽었는지 확인한다.
+class ReplicaRoutingDataSourceTest {
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("primary");
+        DataSource replica = h2("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        primaryJdbc.execute("create table node (name varchar(20))");
+        primaryJdbc.update("insert into node values ('primary')");
+        replicaJdbc.execute("create table node (name varchar(20))");
+        replicaJdbc.update("insert into node values ('replica')");
+        replicaJdbc.execute("create table replica_lag (seconds double)");
+        replicaJdbc.update("insert into replica_lag values (0)");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary,
+                Map.of("replica-0", replica), "select seconds from replica_lag",
+                Duration.ofSeconds(5), Duration.ofMinutes(1));
+        routingDataSource.checkReplicas();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaryJdbc.execute("shutdown");
+        replicaJdbc.execute("shutdown");
+        routingDataSource.close();
+    }
+
+    @Test
+    void readOnlyTransaction_readsFromReplica() {
+        assertEquals("replica", readNode(true));
+    }
+
+    @Test
+    void readWriteTransaction_readsFromPrimary() {
+        assertEquals("primary", readNode(false));
+    }
+
+    @Test
+    void withoutTransaction_readsFromPrimary() {
+        assertEquals("primary",
+                jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    void replicaLagsBehind_fallsBackToPrimary() {
+        replicaJdbc.update("update replica_lag set seconds = 30");
+        routingDataSource.checkReplicas();
+
+        assertTrue(routingDataSource.getAvailableReplicas().isEmpty());
+        assertEquals("primary", readNode(true));
+
+        replicaJdbc.update("update replica_lag set seconds = 0.5");
+        routingDataSource.checkReplicas();
+
+        assertEquals(List.of("replica-0"), routingDataSource.getAvailableReplicas());
+        assertEquals("replica", readNode(true));
+    }
+
+    @Test
+    void lagUnknown_fallsBackToPrimary() {
+        replicaJdbc.update("update replica_lag set seconds = null");
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", readNode(true));
+    }
+
+    private String readNode(boolean readOnly) {
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "sa", "");
+    }
+}
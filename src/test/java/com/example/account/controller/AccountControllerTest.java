@@ -1,9 +1,11 @@
 package com.example.account.controller;
 
-import com.example.account.domain.Account;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.LookupAccount;
 import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.service.AccountService;
@@ -17,8 +19,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -98,21 +103,15 @@ class AccountControllerTest {
     @Test
     void successGetAccountsByUserId() throws Exception {
 
-        List<AccountDto> accountDtos =
+        List<AccountInfo> accountInfos =
                 Arrays.asList(
-                        AccountDto.builder()
-                                .accountNumber("1234567890")
-                                .balance(1000L).build(),
-                        AccountDto.builder()
-                                .accountNumber("1111111111")
-                                .balance(2000L).build(),
-                        AccountDto.builder()
-                                .accountNumber("2222222222")
-                                .balance(3000L).build()
+                        new AccountInfo("1234567890", 1000L),
+                        new AccountInfo("1111111111", 2000L),
+                        new AccountInfo("2222222222", 3000L)
                 );
 
         given(accountService.getAccountByUserId(anyLong()))
-                .willReturn(accountDtos);
+                .willReturn(accountInfos);
 
         mockMvc.perform(get("/account?user_id=1"))
                 .andDo(print())
@@ -131,6 +130,22 @@ class AccountControllerTest {
 
     }
 
+    @Test
+    void successGetAccountsByUserIds() throws Exception {
+        Map<Long, List<AccountInfo>> accountsByUserId = new LinkedHashMap<>();
+        accountsByUserId.put(1L, List.of(new AccountInfo("1234567890", 1000L)));
+        accountsByUserId.put(2L, List.of());
+        given(accountService.getAccountsByUserIds(List.of(1L, 2L)))
+                .willReturn(accountsByUserId);
+
+        mockMvc.perform(get("/account?user_ids=1,2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1[0].accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.1[0].balance").value(1000))
+                .andExpect(jsonPath("$.2").isEmpty());
+    }
+
 
 
 
@@ -139,9 +154,12 @@ class AccountControllerTest {
     void successGetAccount() throws Exception {
         //given
         given(accountService.getAccount(anyLong()))
-                .willReturn(Account.builder()
+                .willReturn(AccountDetail.builder()
+                        .id(876L)
+                        .userId(1L)
                         .accountNumber("3456")
                         .accountStatus(AccountStatus.IN_USE)
+                        .balance(1000L)
                         .build());
         //when
         //then
@@ -149,6 +167,9 @@ class AccountControllerTest {
                 .andDo(print())
                 .andExpect(jsonPath("$.accountNumber").value("3456"))
                 .andExpect(jsonPath("$.accountStatus").value("IN_USE"))
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.balance").value(1000))
+                .andExpect(jsonPath("$.accountUser").doesNotExist())
                 .andExpect(status().isOk());
     }
 
@@ -165,4 +186,40 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.errorMessage").value("계좌가 없습니다."))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void successLookupAccounts() throws Exception {
+        given(accountService.lookupAccounts(List.of(1L, 2L), List.of("1000000012")))
+                .willReturn(List.of(
+                        AccountDetail.builder().id(1L).accountNumber("1000000000")
+                                .balance(1000L).build(),
+                        AccountDetail.builder().id(3L).accountNumber("1000000012")
+                                .balance(2000L).build()));
+
+        mockMvc.perform(post("/account/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new LookupAccount.Request(
+                                        List.of(1L, 2L), List.of("1000000012")))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts.length()").value(2))
+                .andExpect(jsonPath("$.accounts[0].id").value(1))
+                .andExpect(jsonPath("$.accounts[1].accountNumber").value("1000000012"));
+    }
+
+    @Test
+    void failLookupAccounts_tooManyIds() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 101; id++) {
+            ids.add(id);
+        }
+
+        mockMvc.perform(post("/account/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new LookupAccount.Request(ids, List.of()))))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+}
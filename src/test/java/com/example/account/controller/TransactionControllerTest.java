@@ -1,35 +1,81 @@
 package com.example.account.controller;
 
+import com.example.account.domain.TransactionIds;
+import com.example.account.dto.AuthorizeBalance;
+import com.example.account.dto.BalanceHoldDto;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.dto.TransferBalance;
+import com.example.account.dto.TransferDto;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountShardRouter;
+import com.example.account.service.AsyncTransactionService;
+import com.example.account.service.TransactionCache;
+import com.example.account.service.TransactionExportService;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.HoldStatus;
 import com.example.account.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.example.account.type.ErrorCode.TRANSACTION_NOT_FOUND;
+import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.USE;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
+@Import(TransactionCache.class)
 class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private AsyncTransactionService asyncTransactionService;
+
+    @MockBean
+    private AccountShardRouter accountShardRouter;
+
+    @MockBean
+    private TransactionExportService transactionExportService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -61,6 +107,153 @@ class TransactionControllerTest {
 
     }
 
+
+
+    @Test
+    void successUseBalance_shardedAccount() throws Exception {
+        given(accountShardRouter.isSharded("2000000000")).willReturn(true);
+        given(accountShardRouter.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("2000000000")
+                        .transactedAt(LocalDateTime.now())
+                        .amount(3000L)
+                        .transactionId("transactionId")
+                        .transactionResultType(S)
+                        .build());
+
+        mockMvc.perform(post("/transaction/use")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(
+                            new UseBalance.Request(1L, "2000000000", 3000L)
+                    )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("2000000000"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.amount").value(3000));
+
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+    }
+    @Test
+    void successTransferBalance() throws Exception {
+        given(transactionService.transferBalance(anyLong(), anyString(), anyString(), anyLong()))
+                .willReturn(TransferDto.builder()
+                        .withdrawal(TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactedAt(LocalDateTime.now())
+                                .amount(1000L)
+                                .transactionId("withdrawTransactionId")
+                                .transactionResultType(S)
+                                .build())
+                        .deposit(TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .transactedAt(LocalDateTime.now())
+                                .amount(1000L)
+                                .transactionId("depositTransactionId")
+                                .transactionResultType(S)
+                                .build())
+                        .build());
+
+        mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferBalance.Request(1L, "1000000000", "1000000001", 1000L)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.toAccountNumber").value("1000000001"))
+                .andExpect(jsonPath("$.withdrawTransactionId").value("withdrawTransactionId"))
+                .andExpect(jsonPath("$.depositTransactionId").value("depositTransactionId"))
+                .andExpect(jsonPath("$.amount").value(1000));
+    }
+
+    @Test
+    void successAuthorizeBalance() throws Exception {
+        given(transactionService.authorizeBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(BalanceHoldDto.builder()
+                        .accountNumber("1000000000")
+                        .holdId("holdId")
+                        .holdStatus(HoldStatus.HELD)
+                        .amount(1000L)
+                        .expiresAt(LocalDateTime.now().plusMinutes(10))
+                        .build());
+
+        mockMvc.perform(post("/transaction/authorize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new AuthorizeBalance.Request(1L, "1000000000", 1000L)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.holdId").value("holdId"))
+                .andExpect(jsonPath("$.holdStatus").value("HELD"))
+                .andExpect(jsonPath("$.amount").value(1000));
+    }
+
+    @Test
+    void successUseBalanceBatch() throws Exception {
+        given(transactionService.useBalanceBatch(anyList()))
+                .willReturn(List.of(
+                        TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactedAt(LocalDateTime.now())
+                                .amount(1000L)
+                                .transactionId("transactionId")
+                                .transactionResultType(S)
+                                .build(),
+                        TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .transactedAt(LocalDateTime.now())
+                                .amount(2000L)
+                                .transactionId("failedTransactionId")
+                                .transactionResultType(F)
+                                .errorCode(AMOUNT_EXCEED_BALANCE)
+                                .build()));
+
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(
+                                        new UseBalance.Request(1L, "1000000000", 1000L),
+                                        new UseBalance.Request(2L, "1000000001", 2000L)))
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+    @Test
+    void successUseBalanceAsync() throws Exception {
+        given(asyncTransactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactedAt(LocalDateTime.now())
+                        .amount(12345L)
+                        .transactionId("transactionId")
+                        .transactionResultType(S)
+                        .build()));
+
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        )))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.amount").value(12345));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         given(transactionService.cancelBalance(anyString(), anyString(), anyLong()))
@@ -89,26 +282,152 @@ class TransactionControllerTest {
 
     @Test
     void successGetQueryTransaction() throws Exception {
-        given(transactionService.queryTransaction(anyString()))
+        String transactionId = TransactionIds.format(12345L);
+        given(transactionService.queryTransaction(transactionId))
                 .willReturn(TransactionDto.builder()
                         .accountNumber("1000000000")
                         .transactionType(USE)
                         .transactedAt(LocalDateTime.now())
                         .amount(54321L)
-                        .transactionId("transactionIdForCancel")
+                        .transactionId(transactionId)
                         .transactionResultType(S)
                         .build());
 
-        mockMvc.perform(get("/transaction/12345"))
+        mockMvc.perform(get("/transaction/" + transactionId))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + transactionId + "\""))
                 .andExpect(jsonPath("$.accountNumber").value("1000000000"))
                 .andExpect(jsonPath("$.transactionType").value("USE"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
-                .andExpect(jsonPath("$.transactionId").value("transactionIdForCancel"))
+                .andExpect(jsonPath("$.transactionId").value(transactionId))
                 .andExpect(jsonPath("$.amount").value(54321));
 
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void queryTransaction_cachedAfterFirstRead() throws Exception {
+        String transactionId = TransactionIds.format(23456L);
+        given(transactionService.queryTransaction(transactionId))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(1000L)
+                        .transactionId(transactionId)
+                        .build());
+
+        mockMvc.perform(get("/transaction/" + transactionId))
+                .andExpect(jsonPath("$.amount").value(1000));
+        // 소문자 id 도 같은 캐시 항목을 쓴다.
+        mockMvc.perform(get("/transaction/" + transactionId.toLowerCase()))
+                .andExpect(jsonPath("$.amount").value(1000));
+
+        verify(transactionService, times(1)).queryTransaction(transactionId);
+    }
+
+    @Test
+    void queryTransaction_ifNoneMatch_notModified() throws Exception {
+        String transactionId = TransactionIds.format(34567L);
+        given(transactionService.queryTransaction(transactionId))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(1000L)
+                        .transactionId(transactionId)
+                        .build());
+
+        mockMvc.perform(get("/transaction/" + transactionId)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + transactionId + "\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + transactionId + "\""));
+        mockMvc.perform(get("/transaction/" + transactionId)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + transactionId + "\""))
+                .andExpect(status().isNotModified());
+
+        // 두 번째 요청은 캐시에서 확인한다.
+        verify(transactionService, times(1)).queryTransaction(transactionId);
+    }
+
+    @Test
+    void queryTransaction_ifNoneMatch_unknownTransaction() throws Exception {
+        String transactionId = TransactionIds.format(45678L);
+        given(transactionService.queryTransaction(transactionId))
+                .willThrow(new AccountException(TRANSACTION_NOT_FOUND));
+
+        mockMvc.perform(get("/transaction/" + transactionId)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + transactionId + "\""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("TRANSACTION_NOT_FOUND"));
+    }
+
+    @Test
+    void queryTransaction_invalidId() throws Exception {
+        mockMvc.perform(get("/transaction/12345"))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("TRANSACTION_NOT_FOUND"));
+
+        verify(transactionService, never()).queryTransaction(anyString());
+    }
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        given(transactionService.getTransactionHistory(eq("1000000000"), isNull(), eq(2)))
+                .willReturn(TransactionHistory.Response.builder()
+                        .accountNumber("1000000000")
+                        .transactions(List.of(
+                                TransactionHistoryItem.builder()
+                                        .id(2L)
+                                        .transactionId("transactionId2")
+                                        .transactionType(USE)
+                                        .transactionResult(S)
+                                        .amount(2000L)
+                                        .build(),
+                                TransactionHistoryItem.builder()
+                                        .id(1L)
+                                        .transactionId("transactionId1")
+                                        .transactionType(USE)
+                                        .transactionResult(S)
+                                        .amount(1000L)
+                                        .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+
+        mockMvc.perform(get("/account/1000000000/transactions?size=2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId2"))
+                .andExpect(jsonPath("$.transactions[0].id").doesNotExist())
+                .andExpect(jsonPath("$.transactions[1].amount").value(1000))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
+    @Test
+    void successExportTransactionHistory() throws Exception {
+        given(transactionExportService.getAccountId("1000000000")).willReturn(7L);
+        given(transactionExportService.export(eq(7L), isNull(), isNull(),
+                eq(ExportFormat.CSV), any()))
+                .willAnswer(invocation -> {
+                    OutputStream outputStream = invocation.getArgument(4);
+                    outputStream.write("header\nrow\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        MvcResult mvcResult = mockMvc.perform(
+                        get("/account/1000000000/transactions/export?format=CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"1000000000-transactions.csv\""))
+                .andExpect(content().string("header\nrow\n"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.account.repository;
+
+import com.example.account.type.HoldStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 마이그레이션(db/migration) 으로 만든 스키마에서 각 리포지토리 메서드가 실행하는 SQL 의
+ * 실행 계획(H2 EXPLAIN) 에 전체 테이블 스캔(tableScan) 이 없는지 확인한다.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.account.repository.RepositoryQueryPlanTest$SqlCapture")
+class RepositoryQueryPlanTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountShardRepository accountShardRepository;
+
+    @Autowired
+    private BalanceHoldRepository balanceHoldRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void accountQueriesUseIndex() {
+        assertUsesIndex(() -> accountRepository.findByAccountNumber("1000000000"));
+        assertUsesIndex(() -> accountRepository.findByAccountNumberIn(
+                List.of("1000000000", "1000000001")));
+        assertUsesIndex(() -> accountRepository.countByAccountUser(
+                accountUserRepository.getReferenceById(1L)));
+        assertUsesIndex(() -> accountRepository.findByAccountUser(
+                accountUserRepository.getReferenceById(1L)));
+        assertUsesIndex(() -> accountRepository.findAccountInfoByUserId(1L));
+        assertUsesIndex(() -> accountRepository.findAccountInfoByUserIdIn(List.of(1L, 2L)));
+        assertUsesIndex(() -> accountRepository.findByShardCountGreaterThan(1));
+        assertUsesIndex(() -> accountRepository.findAccountDetailById(1L));
+        assertUsesIndex(() -> accountRepository.findAccountDetailByIdIn(List.of(1L, 2L)));
+        assertUsesIndex(() -> accountRepository.findAccountDetailByAccountNumberIn(
+                List.of("1000000000", "1000000001")));
+    }
+
+    @Test
+    void accountShardQueriesUseIndex() {
+        assertUsesIndex(() -> accountShardRepository.findByAccountIdAndShardIndex(1L, 0));
+        assertUsesIndex(() -> accountShardRepository.findByAccountIdOrderByShardIndex(1L));
+        assertUsesIndex(() -> accountShardRepository.findBalancesByAccountNumber("1000000000"));
+        assertUsesIndex(() -> accountShardRepository.sumBalanceByAccountId(1L));
+    }
+
+    @Test
+    void balanceHoldQueriesUseIndex() {
+        assertUsesIndex(() -> balanceHoldRepository.findByHoldKey(1L));
+        assertUsesIndex(() -> balanceHoldRepository.findByHoldStatus(HoldStatus.HELD));
+        assertUsesIndex(() -> balanceHoldRepository.settle(1L, HoldStatus.CAPTURED, NOW));
+    }
+
+    @Test
+    void transactionQueriesUseIndex() {
+        assertUsesIndex(() -> transactionRepository.findByTransactionKey(1L));
+        assertUsesIndex(() -> transactionRepository.findHistory(1L, PageRequest.of(0, 20)));
+        assertUsesIndex(() -> transactionRepository.findHistoryBefore(
+                1L, NOW, 100L, PageRequest.of(0, 20)));
+        assertUsesIndex(() -> {
+            try (Stream<?> transactions = transactionRepository.streamByAccountId(
+                    1L, NOW.minusDays(1), NOW)) {
+                transactions.count();
+            }
+        });
+    }
+
+    private void assertUsesIndex(Runnable repositoryCall) {
+        SqlCapture.clear();
+        repositoryCall.run();
+        List<String> statements = SqlCapture.drain();
+        assertFalse(statements.isEmpty(), "no query was executed");
+
+        for (String sql : statements) {
+            String plan = String.join("\n",
+                    jdbcTemplate.queryForList("explain " + sql, String.class));
+            assertFalse(plan.contains("tableScan"), () -> "full table scan :\n" + plan);
+        }
+    }
+
+    // Hibernate 가 실행하는 select / update / delete 문을 모은다.
+    public static class SqlCapture implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            String statement = sql.trim().toLowerCase(Locale.ROOT);
+            if (statement.startsWith("select") || statement.startsWith("update")
+                    || statement.startsWith("delete")) {
+                synchronized (STATEMENTS) {
+                    STATEMENTS.add(sql);
+                }
+            }
+            return sql;
+        }
+
+        static void clear() {
+            synchronized (STATEMENTS) {
+                STATEMENTS.clear();
+            }
+        }
+
+        static List<String> drain() {
+            synchronized (STATEMENTS) {
+                List<String> statements = new ArrayList<>(STATEMENTS);
+                STATEMENTS.clear();
+                return statements;
+            }
+        }
+    }
+}
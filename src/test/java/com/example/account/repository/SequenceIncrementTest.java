@@ -0,0 +1,41 @@
+package com.example.account.repository;
+
+import com.example.account.domain.PooledSequenceGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 마이그레이션으로 만든 엔티티 시퀀스의 increment 가
+ * PooledSequenceGenerator 의 allocation-size 와 같은지 확인한다.
+ */
+@DataJpaTest
+class SequenceIncrementTest {
+    @Value("${spring.jpa.properties." + PooledSequenceGenerator.ALLOCATION_SIZE_SETTING + "}")
+    private long allocationSize;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void sequenceIncrementMatchesAllocationSize() {
+        List<Map<String, Object>> sequences = new JdbcTemplate(dataSource).queryForList(
+                "select * from information_schema.sequences where sequence_name like '%_SEQ'");
+        assertFalse(sequences.isEmpty(), "no entity sequence was created");
+
+        for (Map<String, Object> sequence : sequences) {
+            assertEquals(allocationSize,
+                    Long.parseLong(String.valueOf(sequence.get("INCREMENT"))),
+                    () -> "increment of " + sequence.get("SEQUENCE_NAME"));
+        }
+    }
+}
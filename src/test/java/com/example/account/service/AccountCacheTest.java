@@ -0,0 +1,72 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountChangedEvent;
+import com.example.account.dto.AccountMetadata;
+import com.example.account.dto.AccountUserMetadata;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheTest {
+    private final AccountCache accountCache = new AccountCache(100, Duration.ofMinutes(10));
+
+    @Test
+    void putAndGetAccount() {
+        accountCache.putAccount(metadata("1000000012"));
+
+        AccountMetadata cached = accountCache.getAccount("1000000012").get();
+
+        assertEquals(1L, cached.getId());
+        assertEquals(12L, cached.getOwnerId());
+        assertFalse(accountCache.getAccount("1000000013").isPresent());
+    }
+
+    @Test
+    void evictOnAccountChanged() {
+        accountCache.putAccount(metadata("1000000012"));
+        accountCache.putAccount(metadata("1000000013"));
+
+        accountCache.onAccountChanged(new AccountChangedEvent("1000000012", 3L));
+
+        assertFalse(accountCache.getAccount("1000000012").isPresent());
+        assertTrue(accountCache.getAccount("1000000013").isPresent());
+    }
+
+    @Test
+    void keepNewerVersionOnReorderedInvalidation() {
+        // 변경(버전 3 -> 4) 후에 다시 읽어서 캐시한 항목
+        accountCache.putAccount(metadata("1000000012", 4L));
+
+        // 그보다 먼저 일어난 변경(버전 2 -> 3) 의 메시지가 늦게 도착
+        accountCache.evictAccount("1000000012", 2L);
+        assertTrue(accountCache.getAccount("1000000012").isPresent());
+
+        accountCache.evictAccount("1000000012", 4L);
+        assertFalse(accountCache.getAccount("1000000012").isPresent());
+    }
+
+    @Test
+    void putAndGetAccountUser() {
+        accountCache.putAccountUser(new AccountUserMetadata(12L, "Pobi"));
+
+        assertEquals("Pobi", accountCache.getAccountUser(12L).get().getName());
+        assertFalse(accountCache.getAccountUser(13L).isPresent());
+    }
+
+    private static AccountMetadata metadata(String accountNumber) {
+        return metadata(accountNumber, 3L);
+    }
+
+    private static AccountMetadata metadata(String accountNumber, Long version) {
+        return AccountMetadata.builder()
+                .id(1L)
+                .accountNumber(accountNumber)
+                .ownerId(12L)
+                .accountStatus(AccountStatus.IN_USE)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountNumberBlock;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountNumberBlockRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountNumberBlockRepository accountNumberBlockRepository;
+
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @AfterEach
+    void tearDown() {
+        accountNumberAllocator.shutdown();
+    }
+
+    @Test
+    void uniqueNumbersFromReservedBlocks() {
+        accountNumberAllocator = new AccountNumberAllocator(accountNumberBlockRepository, 10, 1000L);
+        givenSequentialBlocks(1L);
+        Set<String> accountNumbers = new HashSet<>();
+
+        for (int i = 0; i < 35; i++) {
+            String accountNumber = accountNumberAllocator.nextAccountNumber();
+            assertTrue(accountNumber.matches("110\\d{7}"), accountNumber);
+            assertTrue(accountNumbers.add(accountNumber));
+        }
+        // 35개 발급에 블록 4개(+ 미리 받아둔 1개)
+        verify(accountNumberBlockRepository, atMost(5)).save(any());
+    }
+
+    @Test
+    void useEveryDigit() {
+        accountNumberAllocator = new AccountNumberAllocator(accountNumberBlockRepository, 100, 1000L);
+        givenSequentialBlocks(1L);
+        Set<Character> digits = new HashSet<>();
+
+        for (int i = 0; i < 100; i++) {
+            String accountNumber = accountNumberAllocator.nextAccountNumber();
+            for (char c : accountNumber.substring(3).toCharArray()) {
+                digits.add(c);
+            }
+        }
+
+        assertTrue(digits.contains('9'));
+        assertEquals(10, digits.size());
+    }
+
+    @Test
+    void failWhenNumberSpaceExhausted() {
+        accountNumberAllocator =
+                new AccountNumberAllocator(accountNumberBlockRepository, 10_000_000, 1000L);
+        givenSequentialBlocks(2L);
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountNumberAllocator.nextAccountNumber());
+
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+    }
+
+    @Test
+    void failFastWhenBlockNotReady() {
+        accountNumberAllocator = new AccountNumberAllocator(accountNumberBlockRepository, 10, 50L);
+        CountDownLatch reserved = new CountDownLatch(1);
+        given(accountNumberBlockRepository.save(any())).willAnswer(invocation -> {
+            reserved.await();
+            AccountNumberBlock block = invocation.getArgument(0);
+            block.setId(1L);
+            return block;
+        });
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountNumberAllocator.nextAccountNumber());
+        reserved.countDown();
+
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_NOT_READY, exception.getErrorCode());
+        // 늦게 끝난 예약은 버리지 않고 다음 요청이 쓴다.
+        assertTrue(accountNumberAllocator.nextAccountNumber().matches("110\\d{7}"));
+        verify(accountNumberBlockRepository, times(1)).save(any());
+    }
+
+    private void givenSequentialBlocks(long firstId) {
+        AtomicLong sequence = new AtomicLong(firstId);
+        given(accountNumberBlockRepository.save(any())).willAnswer(invocation -> {
+            AccountNumberBlock block = invocation.getArgument(0);
+            block.setId(sequence.getAndIncrement());
+            return block;
+        });
+    }
+}
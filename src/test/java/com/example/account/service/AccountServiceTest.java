@@ -1,10 +1,17 @@
 package com.example.account.service;
 
 import com.example.account.domain.Account;
+import com.example.account.domain.AccountShard;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountChangedEvent;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.AccountUserMetadata;
+import com.example.account.dto.UserAccountInfo;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountShardRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
@@ -15,15 +22,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -36,6 +47,18 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private AccountShardRepository accountShardRepository;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -74,8 +97,8 @@ class AccountServiceTest {
         user.setId(15L);
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1100000000");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -89,7 +112,8 @@ class AccountServiceTest {
         //then
         verify(accountRepository, times(1)).save(captor.capture());
         assertEquals(15L, accountDto.getUserId());
-        assertEquals("1000000000", captor.getValue().getAccountNumber());
+        assertEquals("1100000000", captor.getValue().getAccountNumber());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
     }
 
     @Test
@@ -148,6 +172,83 @@ class AccountServiceTest {
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000012", captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+        verify(eventPublisher, times(1)).publishEvent(any(AccountChangedEvent.class));
+    }
+
+    @Test
+    void shardAccountSuccess() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10003L)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<AccountShard> captor = ArgumentCaptor.forClass(AccountShard.class);
+
+        AccountDto accountDto = accountService.shardAccount(1L, "1000000012", 4);
+
+        verify(accountShardRepository, times(4)).save(captor.capture());
+        assertEquals(Arrays.asList(2501L, 2501L, 2501L, 2500L), captor.getAllValues().stream()
+                .map(AccountShard::getBalance).collect(Collectors.toList()));
+        assertEquals(0L, account.getBalance());
+        assertEquals(4, account.getShardCount());
+        assertEquals(10003L, accountDto.getBalance());
+        verify(eventPublisher, times(1)).publishEvent(any(AccountChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("이미 샤드 계좌 - 계좌 샤드 실패")
+    void shardAccount_alreadySharded() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(0L)
+                        .shardCount(4)
+                        .accountNumber("1000000012").build()));
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.shardAccount(1L, "1000000012", 4));
+
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_SHARDED, exception.getErrorCode());
+        verify(accountShardRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("샤드 잔액 있음 - 계좌 해지 실패")
+    void deleteAccount_shardBalanceNotEmpty() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .shardCount(4)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountShardRepository.sumBalanceByAccountId(1L))
+                .willReturn(100L);
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(1L, "1000000012"));
+
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, exception.getErrorCode());
     }
 
     @Test
@@ -259,37 +360,53 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(12L);
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountUser(pobi)
-                        .accountNumber("1111111111")
-                        .balance(1000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(pobi)
-                        .accountNumber("2222222222")
-                        .balance(2000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(pobi)
-                        .accountNumber("3333333333")
-                        .balance(3000L)
-                        .build()
-        );
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(pobi));
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
-
-        List<AccountDto> accountDtos = accountService.getAccountByUserId(1L);
-
-        assertEquals(3, accountDtos.size());
-        assertEquals("1111111111", accountDtos.get(0).getAccountNumber());
-        assertEquals(1000, accountDtos.get(0).getBalance());
-        assertEquals("2222222222", accountDtos.get(1).getAccountNumber());
-        assertEquals(2000, accountDtos.get(1).getBalance());
-        assertEquals("3333333333", accountDtos.get(2).getAccountNumber());
-        assertEquals(3000, accountDtos.get(2).getBalance());
+        given(accountRepository.findAccountInfoByUserId(1L))
+                .willReturn(Arrays.asList(
+                        new AccountInfo("1111111111", 1000L),
+                        new AccountInfo("2222222222", 2000L),
+                        new AccountInfo("3333333333", 3000L)));
+
+        List<AccountInfo> accountInfos = accountService.getAccountByUserId(1L);
+
+        assertEquals(3, accountInfos.size());
+        assertEquals("1111111111", accountInfos.get(0).getAccountNumber());
+        assertEquals(1000, accountInfos.get(0).getBalance());
+        assertEquals("2222222222", accountInfos.get(1).getAccountNumber());
+        assertEquals(2000, accountInfos.get(1).getBalance());
+        assertEquals("3333333333", accountInfos.get(2).getAccountNumber());
+        assertEquals(3000, accountInfos.get(2).getBalance());
+        verify(accountCache, times(1)).putAccountUser(any());
+    }
+
+    @Test
+    void getAccountsByUserId_cachedUser() {
+        given(accountCache.getAccountUser(1L))
+                .willReturn(Optional.of(new AccountUserMetadata(1L, "Pobi")));
+        given(accountRepository.findAccountInfoByUserId(1L))
+                .willReturn(List.of());
+
+        assertEquals(0, accountService.getAccountByUserId(1L).size());
+        verify(accountUserRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void successGetAccountsByUserIds() {
+        given(accountRepository.findAccountInfoByUserIdIn(any()))
+                .willReturn(Arrays.asList(
+                        new UserAccountInfo(2L, "2222222222", 2000L),
+                        new UserAccountInfo(1L, "1111111111", 1000L),
+                        new UserAccountInfo(2L, "3333333333", 3000L)));
+
+        Map<Long, List<AccountInfo>> accountsByUserId =
+                accountService.getAccountsByUserIds(List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(List.of(1L, 2L, 3L), List.copyOf(accountsByUserId.keySet()));
+        assertEquals(1, accountsByUserId.get(1L).size());
+        assertEquals(2, accountsByUserId.get(2L).size());
+        assertEquals("3333333333", accountsByUserId.get(2L).get(1).getAccountNumber());
+        assertEquals(0, accountsByUserId.get(3L).size());
     }
 
     @Test
@@ -304,4 +421,79 @@ class AccountServiceTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void successGetAccount() {
+        given(accountRepository.findAccountDetailById(12L))
+                .willReturn(Optional.of(AccountDetail.builder()
+                        .id(12L)
+                        .userId(1L)
+                        .accountNumber("1000000012")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(3000L)
+                        .build()));
+
+        AccountDetail accountDetail = accountService.getAccount(12L);
+
+        assertEquals("1000000012", accountDetail.getAccountNumber());
+        assertEquals(1L, accountDetail.getUserId());
+        assertEquals(3000L, accountDetail.getBalance());
+    }
+
+    @Test
+    void getAccount_accountNotFound() {
+        given(accountRepository.findAccountDetailById(12L))
+                .willReturn(Optional.empty());
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.getAccount(12L));
+
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    void lookupAccounts_keepsRequestOrderAndSkipsMissing() {
+        given(accountRepository.findAccountDetailByIdIn(List.of(3L, 1L, 2L)))
+                .willReturn(Arrays.asList(
+                        AccountDetail.builder().id(1L).accountNumber("1000000001").build(),
+                        AccountDetail.builder().id(3L).accountNumber("1000000003").build()));
+        given(accountRepository.findAccountDetailByAccountNumberIn(List.of("1000000009")))
+                .willReturn(List.of(
+                        AccountDetail.builder().id(9L).accountNumber("1000000009").build()));
+
+        List<AccountDetail> accounts = accountService.lookupAccounts(
+                List.of(3L, 1L, 2L, 3L), List.of("1000000009"));
+
+        assertEquals(List.of(3L, 1L, 9L), accounts.stream()
+                .map(AccountDetail::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void lookupAccounts_idAndAccountNumberOfSameAccount_returnedOnce() {
+        given(accountRepository.findAccountDetailByIdIn(List.of(1L)))
+                .willReturn(List.of(
+                        AccountDetail.builder().id(1L).accountNumber("1000000001").build()));
+        given(accountRepository.findAccountDetailByAccountNumberIn(
+                List.of("1000000001", "1000000002")))
+                .willReturn(List.of(
+                        AccountDetail.builder().id(2L).accountNumber("1000000002").build(),
+                        AccountDetail.builder().id(1L).accountNumber("1000000001").build()));
+
+        List<AccountDetail> accounts = accountService.lookupAccounts(
+                List.of(1L), List.of("1000000001", "1000000002"));
+
+        assertEquals(List.of(1L, 2L), accounts.stream()
+                .map(AccountDetail::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void lookupAccounts_emptyRequest() {
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.lookupAccounts(List.of(), null));
+
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+        verify(accountRepository, never()).findAccountDetailByIdIn(any());
+        verify(accountRepository, never()).findAccountDetailByAccountNumberIn(any());
+    }
+}
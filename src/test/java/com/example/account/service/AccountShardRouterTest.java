@@ -0,0 +1,130 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountShardRouterTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountShardRepository accountShardRepository;
+
+    private AccountShardRouter accountShardRouter;
+
+    @BeforeEach
+    void setUp() {
+        accountShardRouter = new AccountShardRouter(transactionService, lockService,
+                accountCache, accountRepository, accountShardRepository, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void useBalance_locksOnlyShardWithFunds() {
+        given(accountShardRepository.findBalancesByAccountNumber("1000000012"))
+                .willReturn(List.of(100L, 5000L, 200L));
+        TransactionDto transactionDto = TransactionDto.builder().amount(1000L).build();
+        given(transactionService.useShardBalance(1L, "1000000012", 1, 1000L))
+                .willReturn(transactionDto);
+
+        assertSame(transactionDto,
+                accountShardRouter.useBalance(1L, "1000000012", 1000L));
+
+        verify(lockService, times(1)).lock(eq("1000000012#1"), eq(0L), anyLong(), eq(0L));
+        verify(lockService, times(1)).unlock("1000000012#1");
+        verify(lockService, never()).lockAll(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void useBalance_busyShard_waitsForFirstCandidate() {
+        given(accountShardRepository.findBalancesByAccountNumber("1000000012"))
+                .willReturn(List.of(100L, 5000L));
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(eq("1000000012#1"), eq(0L), anyLong(), eq(0L));
+        TransactionDto transactionDto = TransactionDto.builder().amount(1000L).build();
+        given(transactionService.useShardBalance(1L, "1000000012", 1, 1000L))
+                .willReturn(transactionDto);
+
+        assertSame(transactionDto,
+                accountShardRouter.useBalance(1L, "1000000012", 1000L));
+
+        verify(lockService, times(1)).lock(eq("1000000012#1"), eq(1000L), anyLong(), eq(0L));
+        verify(lockService, times(1)).unlock("1000000012#1");
+    }
+
+    @Test
+    void useBalance_noSingleShardHasFunds_locksAllShards() {
+        given(accountShardRepository.findBalancesByAccountNumber("1000000012"))
+                .willReturn(List.of(600L, 600L));
+        given(lockService.lockAll(eq(List.of("1000000012#0", "1000000012#1")),
+                anyLong(), anyLong()))
+                .willReturn(List.of("1000000012#0", "1000000012#1"));
+        TransactionDto transactionDto = TransactionDto.builder().amount(1000L).build();
+        given(transactionService.useBalanceAcrossShards(1L, "1000000012", 1000L))
+                .willReturn(transactionDto);
+
+        assertSame(transactionDto,
+                accountShardRouter.useBalance(1L, "1000000012", 1000L));
+
+        verify(transactionService, never())
+                .useShardBalance(anyLong(), anyString(), anyInt(), anyLong());
+        verify(lockService, times(1))
+                .unlockAll(List.of("1000000012#0", "1000000012#1"));
+    }
+
+    @Test
+    void useBalance_shardDrainedAfterRead_fallsBackToAllShards() {
+        given(accountShardRepository.findBalancesByAccountNumber("1000000012"))
+                .willReturn(List.of(5000L));
+        willThrow(new AccountException(AMOUNT_EXCEED_BALANCE))
+                .given(transactionService).useShardBalance(1L, "1000000012", 0, 1000L);
+        given(lockService.lockAll(any(), anyLong(), anyLong()))
+                .willReturn(List.of("1000000012#0"));
+        willThrow(new AccountException(AMOUNT_EXCEED_BALANCE))
+                .given(transactionService).useBalanceAcrossShards(1L, "1000000012", 1000L);
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountShardRouter.useBalance(1L, "1000000012", 1000L));
+
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(lockService, times(2)).unlock("1000000012#0");
+        verify(lockService, times(1)).unlockAll(List.of("1000000012#0"));
+    }
+
+    @Test
+    void isSkewed() {
+        assertTrue(AccountShardRouter.isSkewed(100L, List.of(1000L, 1000L)));
+        assertTrue(AccountShardRouter.isSkewed(0L, List.of(1900L, 100L)));
+        assertFalse(AccountShardRouter.isSkewed(0L, List.of(1100L, 900L)));
+        assertFalse(AccountShardRouter.isSkewed(0L, List.of()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionExecutionMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransactionServiceTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private LockMetrics lockMetrics;
+
+    @Mock
+    private TransactionSequencer transactionSequencer;
+
+    @Mock
+    private GroupCommitProcessor groupCommitProcessor;
+
+    @Mock
+    private AccountShardRouter accountShardRouter;
+
+    private AsyncTransactionService asyncTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        asyncTransactionService = new AsyncTransactionService(transactionService,
+                lockService, lockMetrics, transactionSequencer, groupCommitProcessor,
+                accountShardRouter, Runnable::run, TransactionExecutionMode.LOCK);
+    }
+
+    @Test
+    void successUseBalanceAsync() throws Exception {
+        given(lockService.newAsyncOwnerId()).willReturn(-1L);
+        given(lockService.lockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(lockService.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionResultType(S)
+                        .amount(1000L)
+                        .build());
+
+        TransactionDto transactionDto = asyncTransactionService
+                .useBalance(1L, "1000000000", 1000L).get();
+
+        assertEquals(S, transactionDto.getTransactionResultType());
+        verify(lockService, times(1)).unlockAsync("1000000000", -1L);
+        verify(lockMetrics).recordWait(eq("AsyncTransactionService.useBalance(..)"),
+                eq("1000000000"), anyLong());
+        verify(lockMetrics).recordHold(eq("AsyncTransactionService.useBalance(..)"), anyLong());
+    }
+
+    @Test
+    void failUseBalanceAsync_saveFailedTransactionAndUnlock() {
+        given(lockService.newAsyncOwnerId()).willReturn(-1L);
+        given(lockService.lockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(lockService.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> asyncTransactionService.useBalance(1L, "1000000000", 1000L).get());
+
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(transactionService, times(1))
+                .saveFailedUseTransaction("1000000000", 1000L);
+        verify(lockService, times(1)).unlockAsync("1000000000", -1L);
+    }
+
+    @Test
+    void failGetLockAsync() {
+        given(lockService.newAsyncOwnerId()).willReturn(-1L);
+        given(lockService.lockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.failedFuture(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> asyncTransactionService.useBalance(1L, "1000000000", 1000L).get());
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+        verify(lockService, never()).unlockAsync(anyString(), anyLong());
+        verify(lockMetrics).recordRejected(eq("AsyncTransactionService.useBalance(..)"),
+                eq("1000000000"), anyLong());
+        verify(lockMetrics, never()).recordHold(anyString(), anyLong());
+    }
+
+    @Test
+    void useBalanceOnSequencer_underAccountLock() throws Exception {
+        asyncTransactionService = new AsyncTransactionService(transactionService,
+                lockService, lockMetrics, new TransactionSequencer(2, 10), groupCommitProcessor,
+                accountShardRouter, Runnable::run,
+                TransactionExecutionMode.SEQUENCER);
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionResultType(S)
+                        .amount(1000L)
+                        .build());
+
+        TransactionDto transactionDto = asyncTransactionService
+                .useBalance(1L, "1000000000", 1000L).get();
+
+        assertEquals(S, transactionDto.getTransactionResultType());
+        // 동기 API 와 같은 계좌 락을 lane 스레드에서 잡는다.
+        InOrder inOrder = inOrder(lockService, transactionService);
+        inOrder.verify(lockService).lock("1000000000");
+        inOrder.verify(transactionService).useBalance(1L, "1000000000", 1000L);
+        inOrder.verify(lockService).unlock("1000000000");
+        verify(lockService, never()).lockAsync(anyString(), anyLong());
+    }
+
+    @Test
+    void shardedAccount_routedToShardRouterInGroupCommitMode() throws Exception {
+        asyncTransactionService = new AsyncTransactionService(transactionService,
+                lockService, lockMetrics, transactionSequencer, groupCommitProcessor,
+                accountShardRouter, Runnable::run,
+                TransactionExecutionMode.GROUP_COMMIT);
+        given(accountShardRouter.isSharded("1000000000")).willReturn(true);
+        given(accountShardRouter.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionResultType(S)
+                        .amount(1000L)
+                        .build());
+
+        TransactionDto transactionDto = asyncTransactionService
+                .useBalance(1L, "1000000000", 1000L).get();
+
+        assertEquals(S, transactionDto.getTransactionResultType());
+        verify(groupCommitProcessor, never()).useBalance(anyLong(), anyString(), anyLong());
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceHoldCreatedEvent;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceHoldExpirySchedulerTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    private BalanceHoldExpiryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new BalanceHoldExpiryScheduler(
+                transactionService, lockService, Runnable::run, 50L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void retryFailedExpiry() {
+        willThrow(new QueryTimeoutException("timeout"))
+                .willThrow(new QueryTimeoutException("timeout"))
+                .willDoNothing()
+                .given(transactionService).expireBalanceHold("holdId");
+
+        scheduler.onBalanceHoldCreated(expiredHold());
+
+        verify(transactionService, timeout(2000).times(3)).expireBalanceHold("holdId");
+        verify(lockService, timeout(2000).times(3)).unlock("1000000012");
+    }
+
+    @Test
+    void doNotRetryAccountException() {
+        willThrow(new AccountException(ErrorCode.HOLD_NOT_FOUND))
+                .given(transactionService).expireBalanceHold("holdId");
+
+        scheduler.onBalanceHoldCreated(expiredHold());
+
+        verify(transactionService, after(500).times(1)).expireBalanceHold("holdId");
+    }
+
+    @Test
+    void retryWhenLockFailed() {
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .willDoNothing()
+                .given(lockService).lock("1000000012");
+        willDoNothing().given(transactionService).expireBalanceHold("holdId");
+
+        scheduler.onBalanceHoldCreated(expiredHold());
+
+        verify(transactionService, timeout(2000).times(1)).expireBalanceHold("holdId");
+    }
+
+    @Test
+    void retryDelayDoublesUpToMax() {
+        assertEquals(50L, scheduler.getRetryDelayMillis(0));
+        assertEquals(100L, scheduler.getRetryDelayMillis(1));
+        assertEquals(400L, scheduler.getRetryDelayMillis(3));
+        assertEquals(60_000L, scheduler.getRetryDelayMillis(20));
+        assertEquals(60_000L, scheduler.getRetryDelayMillis(100));
+    }
+
+    private static BalanceHoldCreatedEvent expiredHold() {
+        return BalanceHoldCreatedEvent.builder()
+                .holdId("holdId")
+                .accountNumber("1000000012")
+                .expiresAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.persistence.EntityManager;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitProcessorTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private GroupCommitProcessor groupCommitProcessor;
+
+    @BeforeEach
+    void setUp() {
+        // 요청을 충분히 모을 수 있도록 대기 시간을 길게 준다.
+        groupCommitProcessor = new GroupCommitProcessor(transactionService, lockService,
+                transactionManager, entityManager, 3, 1000L, 100, 1000L, 15000L);
+        lenient().when(transactionManager.getTransaction(any()))
+                .thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    void tearDown() {
+        groupCommitProcessor.stop();
+    }
+
+    @Test
+    void commitConcurrentOperationsTogether() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        CompletableFuture<TransactionDto> first =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> second =
+                groupCommitProcessor.useBalance(1L, "1000000000", 200L);
+        CompletableFuture<TransactionDto> third =
+                groupCommitProcessor.useBalance(2L, "2000000000", 300L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(S, first.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, second.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, third.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        verify(transactionManager, times(1)).commit(any());
+        verify(lockService).lockAll(Set.of("1000000000", "2000000000"), 0L, 15000L);
+        verify(lockService).unlockAll(any());
+    }
+
+    @Test
+    void failOnlyInvalidOperation() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        given(transactionService.applyUseBalance(1L, "1000000000", 1_000_000L))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        CompletableFuture<TransactionDto> success =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> failed =
+                groupCommitProcessor.useBalance(1L, "1000000000", 1_000_000L);
+        CompletableFuture<TransactionDto> other =
+                groupCommitProcessor.useBalance(2L, "2000000000", 300L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(S, success.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, other.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> failed.get(1, TimeUnit.SECONDS));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(transactionService, times(1))
+                .applyFailedUseTransaction("1000000000", 1_000_000L);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void retryOneByOne_whenBatchCommitFailed() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        willThrow(new CannotAcquireLockException("conflict"))
+                .willDoNothing()
+                .given(transactionManager).commit(any());
+        CompletableFuture<TransactionDto> first =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> second =
+                groupCommitProcessor.useBalance(2L, "2000000000", 200L);
+        CompletableFuture<TransactionDto> third =
+                groupCommitProcessor.useBalance(3L, "3000000000", 300L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(S, first.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, second.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, third.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        // 배치 커밋 1번 + 하나씩 3번
+        verify(transactionManager, times(4)).commit(any());
+    }
+
+    @Test
+    void retryOneByOne_mapsUnexpectedFailureToAccountException() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        willThrow(new CannotAcquireLockException("conflict"))
+                .willThrow(new CannotAcquireLockException("conflict"))
+                .willThrow(new IllegalStateException("boom"))
+                .willDoNothing()
+                .given(transactionManager).commit(any());
+        CompletableFuture<TransactionDto> conflicted =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> broken =
+                groupCommitProcessor.useBalance(2L, "2000000000", 200L);
+        CompletableFuture<TransactionDto> success =
+                groupCommitProcessor.useBalance(3L, "3000000000", 300L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, errorCodeOf(conflicted));
+        assertEquals(ErrorCode.INTERNAL_SERVER_ERROR, errorCodeOf(broken));
+        assertEquals(S, success.get(1, TimeUnit.SECONDS).getTransactionResultType());
+    }
+
+    @Test
+    void lockAllFailed_commitByAccountLock() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lockAll(any(), anyLong(), anyLong());
+        lenient().doThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .when(lockService).lock("1000000000", 0L, 15000L, 0L);
+        CompletableFuture<TransactionDto> busy =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> free =
+                groupCommitProcessor.useBalance(2L, "2000000000", 200L);
+        CompletableFuture<TransactionDto> other =
+                groupCommitProcessor.useBalance(3L, "3000000000", 300L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, errorCodeOf(busy));
+        assertEquals(S, free.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, other.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        verify(transactionService, never()).applyUseBalance(1L, "1000000000", 100L);
+        verify(lockService).unlock("2000000000");
+        verify(lockService).unlock("3000000000");
+        verify(lockService, never()).unlock("1000000000");
+        // 워커가 락을 기다리지 않는다.
+        verify(lockService, never())
+                .lock(anyString(), longThat(wait -> wait > 0), anyLong(), anyLong());
+    }
+
+    @Test
+    void busyAccount_deferredToNextBatch() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lockAll(any(), anyLong(), anyLong());
+        lenient().doThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .doNothing()
+                .when(lockService).lock("1000000000", 0L, 15000L, 0L);
+        CompletableFuture<TransactionDto> busy =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> free =
+                groupCommitProcessor.useBalance(2L, "2000000000", 200L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(S, free.get(1, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, busy.get(3, TimeUnit.SECONDS).getTransactionResultType());
+        verify(lockService, times(2)).lock("1000000000", 0L, 15000L, 0L);
+        verify(transactionService, times(1)).applyUseBalance(1L, "1000000000", 100L);
+        verify(lockService).unlock("1000000000");
+    }
+
+    @Test
+    void cancel_flushesBeforeLookup() throws Exception {
+        given(transactionService.applyUseBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        given(transactionService.applyCancelBalance(anyString(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder().transactionResultType(S).build());
+        CompletableFuture<TransactionDto> use =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+        CompletableFuture<TransactionDto> cancel =
+                groupCommitProcessor.cancelBalance("transactionId", "1000000000", 100L);
+
+        groupCommitProcessor.start();
+
+        assertEquals(S, use.get(2, TimeUnit.SECONDS).getTransactionResultType());
+        assertEquals(S, cancel.get(2, TimeUnit.SECONDS).getTransactionResultType());
+        InOrder inOrder = inOrder(transactionService, entityManager);
+        inOrder.verify(transactionService).applyUseBalance(1L, "1000000000", 100L);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(transactionService)
+                .applyCancelBalance("transactionId", "1000000000", 100L);
+    }
+
+    @Test
+    void stop_failsQueuedOperations() {
+        CompletableFuture<TransactionDto> queued =
+                groupCommitProcessor.useBalance(1L, "1000000000", 100L);
+
+        groupCommitProcessor.stop();
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, errorCodeOf(queued));
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                errorCodeOf(groupCommitProcessor.useBalance(1L, "1000000000", 100L)));
+    }
+
+    private static ErrorCode errorCodeOf(CompletableFuture<TransactionDto> future) {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> future.get(3, TimeUnit.SECONDS));
+        return ((AccountException) exception.getCause()).getErrorCode();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HotAccountSketchTest {
+
+    @Test
+    void topAccounts() {
+        HotAccountSketch sketch = new HotAccountSketch(3);
+        for (int i = 0; i < 5; i++) {
+            sketch.add("1000000001");
+        }
+        for (int i = 0; i < 3; i++) {
+            sketch.add("1000000002");
+        }
+        sketch.add("1000000003");
+
+        List<HotAccountSketch.HotAccount> top = sketch.top(2);
+
+        assertEquals(2, top.size());
+        assertEquals("1000000001", top.get(0).getAccountNumber());
+        assertEquals(5, top.get(0).getCount());
+        assertEquals("1000000002", top.get(1).getAccountNumber());
+    }
+
+    @Test
+    void evictMinWhenFull() {
+        HotAccountSketch sketch = new HotAccountSketch(2);
+        sketch.add("1000000001");
+        sketch.add("1000000001");
+        sketch.add("1000000002");
+        sketch.add("1000000003");
+
+        List<HotAccountSketch.HotAccount> top = sketch.top(2);
+
+        assertEquals("1000000001", top.get(0).getAccountNumber());
+        assertEquals("1000000003", top.get(1).getAccountNumber());
+        assertEquals(2, top.get(1).getCount());
+        assertEquals(1, top.get(1).getError());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(
+            new StaticListableBeanFactory().getBeanProvider(RedissonClient.class),
+            new ObjectMapper().registerModule(new JavaTimeModule()),
+            100, Duration.ofMinutes(10), Duration.ofSeconds(30), Duration.ofSeconds(5));
+
+    @Test
+    void replayCompletedResponse() throws Throwable {
+        AtomicInteger calls = new AtomicInteger();
+
+        UseBalance.Response first = idempotencyStore.execute("use:key-1", "fingerprint",
+                UseBalance.Response.class, () -> response(calls.incrementAndGet()));
+        UseBalance.Response second = idempotencyStore.execute("use:key-1", "fingerprint",
+                UseBalance.Response.class, () -> response(calls.incrementAndGet()));
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getTransactionId(), second.getTransactionId());
+        assertEquals(1000L, second.getAmount());
+    }
+
+    @Test
+    void replayFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        IdempotencyStore.Action failing = () -> {
+            calls.incrementAndGet();
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        };
+
+        assertThrows(AccountException.class, () -> idempotencyStore.execute(
+                "use:key-2", "fingerprint", UseBalance.Response.class, failing));
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyStore.execute(
+                        "use:key-2", "fingerprint", UseBalance.Response.class, failing));
+
+        assertEquals(1, calls.get());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    void doNotStoreLockFailure() throws Throwable {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(AccountException.class, () -> idempotencyStore.execute(
+                "use:key-3", "fingerprint", UseBalance.Response.class, () -> {
+                    calls.incrementAndGet();
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }));
+        idempotencyStore.execute("use:key-3", "fingerprint",
+                UseBalance.Response.class, () -> response(calls.incrementAndGet()));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void duplicateInFlightWaitsForOriginal() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<UseBalance.Response> original = CompletableFuture.supplyAsync(
+                () -> execute("use:key-4", () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    release.await();
+                    return response(1);
+                }));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        CompletableFuture<UseBalance.Response> duplicate = CompletableFuture.supplyAsync(
+                () -> execute("use:key-4", () -> response(calls.incrementAndGet())));
+        Thread.sleep(100L);
+        assertFalse(duplicate.isDone());
+
+        release.countDown();
+
+        assertEquals(original.get().getTransactionId(), duplicate.get().getTransactionId());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void rejectSameKeyWithDifferentRequest() throws Throwable {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyStore.execute("use:key-5", "fingerprint",
+                UseBalance.Response.class, () -> response(calls.incrementAndGet()));
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyStore.execute("use:key-5", "other-fingerprint",
+                        UseBalance.Response.class,
+                        () -> response(calls.incrementAndGet())));
+
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        assertEquals(1, calls.get());
+    }
+
+    private UseBalance.Response execute(String key, IdempotencyStore.Action action) {
+        try {
+            return idempotencyStore.execute(
+                    key, "fingerprint", UseBalance.Response.class, action);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static UseBalance.Response response(int sequence) {
+        return UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionResult(TransactionResultType.S)
+                .transactionId("transactionId" + sequence)
+                .amount(1000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLockProviderTest {
+    private final InMemoryLockProvider lockProvider = new InMemoryLockProvider();
+
+    @Test
+    void lockAndUnlock() throws InterruptedException {
+        assertTrue(lockProvider.tryLock("ACLK:123", 0, 15, TimeUnit.SECONDS));
+
+        lockProvider.unlock("ACLK:123");
+
+        assertTrue(lockProvider.tryLock("ACLK:123", 0, 15, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failGetLock_heldByOtherThread() throws Exception {
+        assertTrue(lockProvider.tryLock("ACLK:123", 0, 15, TimeUnit.SECONDS));
+
+        boolean isLock = CompletableFuture.supplyAsync(() -> {
+            try {
+                return lockProvider.tryLock("ACLK:123", 50, 15000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertFalse(isLock);
+    }
+
+    @Test
+    void successGetLock_afterLeaseExpired() throws Exception {
+        assertTrue(lockProvider.tryLock("ACLK:123", 0, 10, TimeUnit.MILLISECONDS));
+
+        boolean isLock = CompletableFuture.supplyAsync(() -> {
+            try {
+                return lockProvider.tryLock("ACLK:123", 1000, 15000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertTrue(isLock);
+    }
+
+    @Test
+    void failUnlock_notOwner() {
+        assertThrows(IllegalMonitorStateException.class,
+                () -> lockProvider.unlock("ACLK:123"));
+    }
+}
@@ -1,19 +1,29 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.type.LockStrategy;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -22,12 +32,69 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private LockHoldTimeTracker lockHoldTimeTracker;
+
+    @Mock
+    private LockMetrics lockMetrics;
+
+    @Mock
+    private ObjectProvider<AccountShardRouter> accountShardRouterProvider;
+
+    @Mock
+    private AccountShardRouter accountShardRouter;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private Signature signature;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    private AccountLock accountLock;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        accountLock = getClass().getDeclaredMethod("lockedMethod")
+                .getAnnotation(AccountLock.class);
+        given(proceedingJoinPoint.getSignature()).willReturn(signature);
+        given(signature.toShortString()).willReturn("TransactionController.useBalance(..)");
+    }
+
+    @AccountLock(tryLockTime = 2000L, leaseTime = 5000L)
+    private void lockedMethod() {
+    }
+
+    @AccountLock(leaseTime = 5000L, adaptiveLease = true)
+    private void adaptiveLockedMethod() {
+    }
+
+    @AccountLock(strategy = LockStrategy.OPTIMISTIC, maxRetries = 2)
+    private void optimisticMethod() {
+    }
+
+    @AccountLock(shardAware = true)
+    private void shardAwareMethod() {
+    }
+
+    @Test
+    void shardedAccount_skipsAccountLock() throws Throwable {
+        AccountLock shardAwareLock = getClass().getDeclaredMethod("shardAwareMethod")
+                .getAnnotation(AccountLock.class);
+        given(accountShardRouterProvider.getObject()).willReturn(accountShardRouter);
+        given(accountShardRouter.isSharded("1234")).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn("result");
+
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, shardAwareLock,
+                new UseBalance.Request(123L, "1234", 1000L));
+
+        assertEquals("result", result);
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong(), anyLong());
+        verify(lockService, never()).unlock(anyString());
+    }
+
     @Test
     void lockAndUnlock() throws Throwable {
         ArgumentCaptor<String> lockArgumentCaptor =
@@ -37,10 +104,10 @@ class LockAopAspectTest {
         UseBalance.Request request =
                 new UseBalance.Request(123L, "1234", 1000L);
 
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request);
 
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(lockArgumentCaptor.capture(), eq(2000L), eq(5000L), eq(0L));
         verify(lockService, times(1))
                 .unlock(unLockArgumentCaptor.capture());
         assertEquals("1234", lockArgumentCaptor.getValue());
@@ -60,14 +127,85 @@ class LockAopAspectTest {
                 .willThrow(new AccountException(ACCOUNT_NOT_FOUND));
 
         assertThrows(AccountException.class, () ->
-                lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+                lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request));
 
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(lockArgumentCaptor.capture(), anyLong(), anyLong(), anyLong());
         verify(lockService, times(1))
                 .unlock(unLockArgumentCaptor.capture());
         assertEquals("54321", lockArgumentCaptor.getValue());
         assertEquals("54321", unLockArgumentCaptor.getValue());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void lockWithAdaptiveLeaseTime() throws Throwable {
+        AccountLock adaptiveLock = getClass().getDeclaredMethod("adaptiveLockedMethod")
+                .getAnnotation(AccountLock.class);
+        given(lockHoldTimeTracker.getLeaseTime(anyString(), anyLong()))
+                .willReturn(1200L);
+        given(lockHoldTimeTracker.getExpectedHoldTime(anyString()))
+                .willReturn(400L);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1234", 1000L);
+
+        lockAopAspect.aroundMethod(proceedingJoinPoint, adaptiveLock, request);
+
+        verify(lockService, times(1))
+                .lock("1234", 1000L, 1200L, 400L);
+        verify(lockHoldTimeTracker, times(1))
+                .record(eq("TransactionController.useBalance(..)"), anyLong());
+    }
+
+    @Test
+    void recordRejected_lockFailed() throws Throwable {
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1234", 1000L);
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(anyString(), anyLong(), anyLong(), anyLong());
+
+        assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request));
+
+        verify(lockMetrics, times(1))
+                .recordRejected(eq("TransactionController.useBalance(..)"),
+                        eq("1234"), anyLong());
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(lockService, never()).unlock(anyString());
+    }
+
+    @Test
+    void optimistic_retryOnVersionConflict() throws Throwable {
+        AccountLock optimisticLock = getClass().getDeclaredMethod("optimisticMethod")
+                .getAnnotation(AccountLock.class);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willReturn("success");
+
+        Object result = lockAopAspect.aroundMethod(
+                proceedingJoinPoint, optimisticLock, request);
+
+        assertEquals("success", result);
+        verify(proceedingJoinPoint, times(2)).proceed();
+        verify(lockMetrics, times(1)).recordOptimisticRetry(anyString(), eq("1234"));
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void optimistic_failWhenRetryExhausted() throws Throwable {
+        AccountLock optimisticLock = getClass().getDeclaredMethod("optimisticMethod")
+                .getAnnotation(AccountLock.class);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+
+        AccountException exception = assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint, optimisticLock, request));
+
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(3)).proceed();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LockHoldTimeTrackerTest {
+    private final LockHoldTimeTracker lockHoldTimeTracker = new LockHoldTimeTracker();
+
+    @Test
+    void useMaxLeaseTime_notEnoughSamples() {
+        lockHoldTimeTracker.record("use", 100L);
+
+        assertEquals(15000L, lockHoldTimeTracker.getLeaseTime("use", 15000L));
+        assertEquals(0L, lockHoldTimeTracker.getExpectedHoldTime("use"));
+    }
+
+    @Test
+    void leaseTimeFromHoldTimes() {
+        for (int i = 1; i <= 100; i++) {
+            lockHoldTimeTracker.record("use", i * 10L);
+        }
+
+        // p99 = 990ms, lease = 3 * p99 + 2000ms
+        assertEquals(4970L, lockHoldTimeTracker.getLeaseTime("use", 15000L));
+        assertEquals(500L, lockHoldTimeTracker.getExpectedHoldTime("use"));
+    }
+
+    @Test
+    void leaseTimeNotExceedMax() {
+        for (int i = 0; i < 100; i++) {
+            lockHoldTimeTracker.record("use", 10000L);
+        }
+
+        assertEquals(15000L, lockHoldTimeTracker.getLeaseTime("use", 15000L));
+    }
+
+    @Test
+    void leaseTimeNotBelowMin() {
+        for (int i = 0; i < 100; i++) {
+            lockHoldTimeTracker.record("use", 1L);
+        }
+
+        assertEquals(3000L, lockHoldTimeTracker.getLeaseTime("use", 15000L));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 로컬 락 tier 유무에 따른 락 획득 시간(p50/p99) 비교
+ * embedded Redis + Redisson(RedissonLockProvider) 에 여러 계좌로 부하를 준다.
+ * ./gradlew benchmark 로 실행 (일반 test 태스크에서는 제외)
+ */
+@Tag("benchmark")
+class LockServiceBenchmarkTest {
+    private static final int THREADS = 32;
+    private static final int ACCOUNTS = 8;
+    private static final int ITERATIONS_PER_THREAD = 50;
+    private static final long HOLD_MICROS = 200L;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = findFreePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    void compareLocalTier(TestReporter testReporter) throws Exception {
+        Result withoutLocalTier = run(false);
+        Result withLocalTier = run(true);
+
+        testReporter.publishEntry(Map.of(
+                "withoutLocalTier", withoutLocalTier.toString(),
+                "withLocalTier", withLocalTier.toString()));
+
+        int attempts = THREADS * ITERATIONS_PER_THREAD;
+        assertEquals(attempts, withoutLocalTier.acquired + withoutLocalTier.rejected);
+        assertEquals(attempts, withLocalTier.acquired + withLocalTier.rejected);
+        // 계좌마다 THREADS / ACCOUNTS 개의 요청만 겹치고 점유 시간이 짧으므로
+        // 로컬 tier 를 거쳐도 대기 시간(1s) 안에 모두 잡혀야 한다.
+        assertEquals(0, withLocalTier.rejected, withLocalTier::toString);
+    }
+
+    private Result run(boolean localTierEnabled) throws Exception {
+        AtomicLong redisCalls = new AtomicLong();
+        LockService lockService = new LockService(
+                countingLockProvider(new RedissonLockProvider(redissonClient), redisCalls));
+        ReflectionTestUtils.setField(lockService, "localTierEnabled", localTierEnabled);
+
+        List<Long> acquireNanos = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int i = 0; i < THREADS; i++) {
+            String accountNumber = String.valueOf(1000000000L + i % ACCOUNTS);
+            executor.execute(() -> {
+                try {
+                    for (int j = 0; j < ITERATIONS_PER_THREAD; j++) {
+                        long startedAt = System.nanoTime();
+                        try {
+                            lockService.lock(accountNumber);
+                        } catch (RuntimeException e) {
+                            rejected.incrementAndGet();
+                            continue;
+                        }
+                        acquireNanos.add(System.nanoTime() - startedAt);
+                        sleepMicros(HOLD_MICROS);
+                        lockService.unlock(accountNumber);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+
+        List<Long> sorted = new ArrayList<>(acquireNanos);
+        Collections.sort(sorted);
+        return new Result(percentile(sorted, 0.50), percentile(sorted, 0.99),
+                sorted.size(), rejected.get(), redisCalls.get());
+    }
+
+    // 실제 Redis 에 간 락 요청 수를 센다.
+    private static LockProvider countingLockProvider(LockProvider delegate, AtomicLong calls) {
+        return new LockProvider() {
+            @Override
+            public boolean tryLock(String key, long waitTime, long leaseTime,
+                                   TimeUnit unit) throws InterruptedException {
+                calls.incrementAndGet();
+                return delegate.tryLock(key, waitTime, leaseTime, unit);
+            }
+
+            @Override
+            public void unlock(String key) {
+                calls.incrementAndGet();
+                delegate.unlock(key);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> tryLockAsync(
+                    String key, long ownerId, long waitTime, long leaseTime,
+                    TimeUnit unit) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    private static void sleepMicros(long micros) {
+        long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static class Result {
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final int acquired;
+        private final int rejected;
+        private final long redisCalls;
+
+        Result(long p50Nanos, long p99Nanos, int acquired, int rejected, long redisCalls) {
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.acquired = acquired;
+            this.rejected = rejected;
+            this.redisCalls = redisCalls;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50=%dus p99=%dus acquired=%d rejected=%d redisCalls=%d",
+                    TimeUnit.NANOSECONDS.toMicros(p50Nanos),
+                    TimeUnit.NANOSECONDS.toMicros(p99Nanos),
+                    acquired, rejected, redisCalls);
+        }
+    }
+}
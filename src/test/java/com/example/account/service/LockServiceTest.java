@@ -4,32 +4,37 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
     @Mock
-    private RedissonClient redissonClient;
-
-    @Mock
-    private RLock rLock;
+    private LockProvider lockProvider;
 
     @InjectMocks
     private LockService lockService;
 
     @Test
     void successGetLock() throws InterruptedException {
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
                 .willReturn(true);
 
         assertDoesNotThrow(() -> lockService.lock("123"));
@@ -38,9 +43,7 @@ class LockServiceTest {
 
     @Test
     void failGetLock() throws InterruptedException {
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
                 .willReturn(false);
 
         AccountException exception = assertThrows(AccountException.class,
@@ -49,4 +52,168 @@ class LockServiceTest {
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    void failGetLock_queueTooDeep() throws Exception {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        // 다른 스레드가 같은 계좌의 로컬 락을 잡고 있는 상태
+        CompletableFuture.runAsync(() -> lockService.lock("123")).get();
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("123", 1000L, 15000L, 2000L));
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(lockProvider, times(1))
+                .tryLock(anyString(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void lockAllInAccountNumberOrder() throws InterruptedException {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        List<String> locked = lockService.lockAll(
+                List.of("1000000003", "1000000001", "1000000003", "1000000002"),
+                1000L, 15000L);
+
+        assertEquals(List.of("1000000001", "1000000002", "1000000003"), locked);
+        InOrder inOrder = inOrder(lockProvider);
+        inOrder.verify(lockProvider).tryLock(eq("ACLK:1000000001"), anyLong(), anyLong(), any());
+        inOrder.verify(lockProvider).tryLock(eq("ACLK:1000000002"), anyLong(), anyLong(), any());
+        inOrder.verify(lockProvider).tryLock(eq("ACLK:1000000003"), anyLong(), anyLong(), any());
+        lockService.unlockAll(locked);
+    }
+
+    @Test
+    void failLockAll_releaseAcquiredLocks() throws InterruptedException {
+        given(lockProvider.tryLock(eq("ACLK:1000000001"), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(lockProvider.tryLock(eq("ACLK:1000000002"), anyLong(), anyLong(), any()))
+                .willReturn(false);
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lockAll(
+                        List.of("1000000002", "1000000001"), 1000L, 15000L));
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(lockProvider, times(1)).unlock("ACLK:1000000001");
+        verify(lockProvider, never()).unlock("ACLK:1000000002");
+    }
+
+    @Test
+    void lockAll_overlappingRequestsDoNotDeadlock() throws Exception {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        // "Aa" 와 "BB" 는 hashCode 가 같고, 두 요청은 계좌를 반대 순서로 넘긴다.
+        Runnable forward = () -> lockAndUnlockRepeatedly(List.of("Aa", "BB", "1000000001"));
+        Runnable backward = () -> lockAndUnlockRepeatedly(List.of("1000000001", "BB", "Aa"));
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(forward),
+                CompletableFuture.runAsync(backward)
+        ).get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, lockService.getLocalLockCount());
+    }
+
+    @Test
+    void lockAll_manyAccounts_doesNotBlockOtherAccounts() throws Exception {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        List<String> accountNumbers = IntStream.range(0, 1000)
+                .mapToObj(i -> String.valueOf(1000000000L + i))
+                .collect(Collectors.toList());
+
+        List<String> locked = lockService.lockAll(accountNumbers, 1000L, 15000L);
+
+        CompletableFuture.runAsync(() -> {
+            lockService.lock("2000000000", 0L, 15000L, 0L);
+            lockService.unlock("2000000000");
+        }).get(1, TimeUnit.SECONDS);
+        lockService.unlockAll(locked);
+        assertEquals(0, lockService.getLocalLockCount());
+    }
+
+    private void lockAndUnlockRepeatedly(List<String> accountNumbers) {
+        for (int i = 0; i < 200; i++) {
+            lockService.unlockAll(lockService.lockAll(accountNumbers, 1000L, 15000L));
+        }
+    }
+
+    @Test
+    void failGetLock_providerError() throws InterruptedException {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willThrow(new IllegalStateException("redis is down"));
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("123"));
+
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(0, lockService.getLocalLockCount());
+    }
+
+    @Test
+    void failGetLock_interrupted() throws InterruptedException {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willThrow(new InterruptedException());
+
+        try {
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> lockService.lock("123"));
+
+            assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertEquals(0, lockService.getLocalLockCount());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void localLockIsPerAccount() throws Exception {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        // "Aa" 와 "BB" 는 hashCode 가 같다.
+        CompletableFuture.runAsync(() -> lockService.lock("Aa")).get();
+
+        assertDoesNotThrow(() -> lockService.lock("BB", 0L, 15000L, 0L));
+        lockService.unlock("BB");
+        assertEquals(1, lockService.getLocalLockCount());
+    }
+
+    @Test
+    void localLockRemovedAfterUnlock() throws InterruptedException {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        lockService.lock("123");
+        lockService.lock("123");
+        lockService.unlock("123");
+        assertEquals(1, lockService.getLocalLockCount());
+        lockService.unlock("123");
+
+        assertEquals(0, lockService.getLocalLockCount());
+    }
+
+    @Test
+    void localLockRemovedAfterRemoteFailure() throws InterruptedException {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(false);
+
+        assertThrows(AccountException.class, () -> lockService.lock("123"));
+
+        assertEquals(0, lockService.getLocalLockCount());
+    }
+
+    @Test
+    void unlock_leaseExpired_doesNotThrow() throws InterruptedException {
+        given(lockProvider.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        willThrow(new IllegalMonitorStateException("lease expired"))
+                .given(lockProvider).unlock("ACLK:123");
+        lockService.lock("123");
+
+        assertDoesNotThrow(() -> lockService.unlock("123"));
+        assertEquals(0, lockService.getLocalLockCount());
+    }
+}
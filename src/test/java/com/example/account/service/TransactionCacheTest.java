@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransactionSavedEvent;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCacheTest {
+    private final TransactionCache transactionCache = new TransactionCache(100);
+
+    @Test
+    void putOnTransactionSaved() {
+        transactionCache.onTransactionSaved(new TransactionSavedEvent(response("0000000000001")));
+
+        assertEquals(1000L,
+                transactionCache.getTransaction("0000000000001").get().getAmount());
+        assertFalse(transactionCache.getTransaction("0000000000002").isPresent());
+    }
+
+    @Test
+    void loadOnceOnRead() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            transactionCache.getTransaction("0000000000003", id -> {
+                loads.incrementAndGet();
+                return response(id);
+            });
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void notFoundIsNotCached() {
+        assertThrows(AccountException.class,
+                () -> transactionCache.getTransaction("0000000000004", id -> {
+                    throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+                }));
+
+        assertFalse(transactionCache.getTransaction("0000000000004").isPresent());
+    }
+
+    private QueryTransactionResponse response(String transactionId) {
+        return QueryTransactionResponse.builder()
+                .accountNumber("1000000012")
+                .transactionId(transactionId)
+                .amount(1000L)
+                .build();
+    }
+}
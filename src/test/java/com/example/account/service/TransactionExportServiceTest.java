@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIds;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    private static final LocalDateTime TRANSACTED_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactionExportService = new TransactionExportService(transactionRepository,
+                accountRepository, accountCache, entityManager, objectMapper);
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        given(transactionRepository.streamByAccountId(eq(7L), any(), any()))
+                .willReturn(Stream.of(transaction(1L), transaction(2L)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long count = transactionExportService.export(7L, null, null,
+                ExportFormat.CSV, outputStream);
+
+        assertEquals(2L, count);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("transactionId,transactionType,transactionResult,amount,"
+                + "balanceSnapshot,transactedAt", lines[0]);
+        assertEquals(TransactionIds.format(1L) + ",USE,S,1000,9000,2024-01-01T12:00",
+                lines[1]);
+    }
+
+    @Test
+    void exportNdjson_clearsPersistenceContextPeriodically() throws Exception {
+        given(transactionRepository.streamByAccountId(eq(7L), eq(TRANSACTED_AT), any()))
+                .willReturn(LongStream.rangeClosed(1, 1200).mapToObj(this::transaction));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long count = transactionExportService.export(7L, TRANSACTED_AT, null,
+                ExportFormat.NDJSON, outputStream);
+
+        assertEquals(1200L, count);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1200, lines.length);
+        assertTrue(lines[0].contains("\"transactionId\":\"" + TransactionIds.format(1L) + "\""));
+        assertTrue(lines[0].contains("\"transactedAt\":\"2024-01-01T12:00:00\""));
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void getAccountId_accountNotFound() {
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.empty());
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExportService.getAccountId("1000000000"));
+
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    private Transaction transaction(long transactionKey) {
+        return Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionKey(transactionKey)
+                .transactedAt(TRANSACTED_AT)
+                .build();
+    }
+}
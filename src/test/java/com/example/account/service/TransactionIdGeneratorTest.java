@@ -0,0 +1,93 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionIds;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdGeneratorTest {
+
+    @Test
+    void idsAreUniqueAndIncreasing() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(7L);
+        Set<Long> ids = new HashSet<>();
+        long previous = 0L;
+
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertTrue(ids.add(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void nodeIdIsEncoded() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(7L);
+
+        long id = generator.nextId();
+
+        assertEquals(7L, (id >>> 12) & 0x3FF);
+    }
+
+    @Test
+    void nodeIdRequiredWithoutLease() {
+        assertThrows(IllegalStateException.class,
+                () -> new TransactionIdGenerator(-1L, "jdbc", noLease()));
+    }
+
+    @Test
+    void singleNodeDefaultsToZero() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(-1L, "memory", noLease());
+
+        assertEquals(0L, (generator.nextId() >>> 12) & 0x3FF);
+    }
+
+    @Test
+    void configuredNodeIdWins() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(9L, "jdbc", noLease());
+
+        assertEquals(9L, (generator.nextId() >>> 12) & 0x3FF);
+    }
+
+    private static ObjectProvider<NodeIdLease> noLease() {
+        return new StaticListableBeanFactory().getBeanProvider(NodeIdLease.class);
+    }
+
+    @Test
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionIdGenerator(1024L));
+    }
+
+    @Test
+    void formatAndParse() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(1L);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        String firstId = TransactionIds.format(first);
+        String secondId = TransactionIds.format(second);
+
+        assertEquals(13, firstId.length());
+        assertTrue(firstId.compareTo(secondId) < 0);
+        assertEquals(Optional.of(first), TransactionIds.parse(firstId));
+        assertEquals(Optional.of(first), TransactionIds.parse(firstId.toLowerCase()));
+        assertEquals(Optional.of(-1L), TransactionIds.parse(TransactionIds.format(-1L)));
+    }
+
+    @Test
+    void parseInvalidId() {
+        assertEquals(Optional.empty(),
+                TransactionIds.parse("4d1063ead21344818ece5eea0c69ca90"));
+        assertEquals(Optional.empty(), TransactionIds.parse("0000000000U00"));
+        assertEquals(Optional.empty(), TransactionIds.parse("G000000000000"));
+        assertEquals(Optional.empty(), TransactionIds.parse(null));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionSequencerTest {
+    private TransactionSequencer transactionSequencer;
+
+    @AfterEach
+    void tearDown() {
+        transactionSequencer.shutdown();
+    }
+
+    @Test
+    void sameAccountRunsInOrder() throws Exception {
+        transactionSequencer = new TransactionSequencer(4, 100);
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            int order = i;
+            futures.add(transactionSequencer.submit("1000000000", () -> {
+                applied.add(order);
+                return order;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, applied.get(i));
+        }
+    }
+
+    @Test
+    void failWhenLaneIsFull() throws Exception {
+        transactionSequencer = new TransactionSequencer(1, 1);
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        transactionSequencer.submit("1000000000", () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        // 실행 중인 작업이 lane 을 잡고 있는 동안 큐에 하나만 더 들어갈 수 있다.
+        CompletableFuture<Object> queued = null;
+        CompletableFuture<Object> rejected = null;
+        for (int i = 0; i < 3 && rejected == null; i++) {
+            CompletableFuture<Object> future =
+                    transactionSequencer.submit("1000000000", () -> null);
+            if (future.isCompletedExceptionally()) {
+                rejected = future;
+            } else {
+                queued = future;
+            }
+        }
+        blocker.countDown();
+
+        assertNotNull(rejected);
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        assertNotNull(queued);
+        queued.get();
+    }
+}
@@ -1,15 +1,30 @@
 package com.example.account.service;
 
 import com.example.account.domain.Account;
+import com.example.account.domain.AccountShard;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceHold;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIds;
+import com.example.account.dto.AccountMetadata;
+import com.example.account.dto.AccountUserMetadata;
+import com.example.account.dto.BalanceHoldCreatedEvent;
+import com.example.account.dto.BalanceHoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.dto.TransactionSavedEvent;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountShardRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,18 +32,25 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.AccountStatus.IN_USE;
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -41,6 +63,24 @@ class TransactionServiceTest {
 
     @Mock
     private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BalanceHoldRepository balanceHoldRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AccountShardRepository accountShardRepository;
     
     @InjectMocks
     private TransactionService transactionService;
@@ -80,6 +120,7 @@ class TransactionServiceTest {
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(9000L, transactionDto.getBalanceSnapshot());
         assertEquals(1000L, transactionDto.getAmount());
+        verify(eventPublisher, times(1)).publishEvent(any(TransactionSavedEvent.class));
 
     }
 
@@ -240,7 +281,7 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionKey(1L)
                 .transactedAt(LocalDateTime.now())
                 .amount(200L)
                 .balanceSnapshot(9000L)
@@ -254,7 +295,7 @@ class TransactionServiceTest {
                         .account(account)
                         .transactionType(CANCEL)
                         .transactionResultType(S)
-                        .transactionId("transactionIdForCancel")
+                        .transactionKey(2L)
                         .transactedAt(LocalDateTime.now())
                         .amount(200L)
                         .balanceSnapshot(10000L)
@@ -328,7 +369,7 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionKey(1L)
                 .transactedAt(LocalDateTime.now())
                 .amount(200L)
                 .balanceSnapshot(9000L)
@@ -366,7 +407,7 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionKey(1L)
                 .transactedAt(LocalDateTime.now())
                 .amount(10200L)
                 .balanceSnapshot(9000L)
@@ -404,7 +445,7 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionKey(1L)
                 .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
                 .amount(200L)
                 .balanceSnapshot(9000L)
@@ -425,6 +466,362 @@ class TransactionServiceTest {
         assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
     }
 
+    @Test
+    @DisplayName("캐시된 사용자/계좌번호 - 조회 쿼리 없이 id 로 계좌 조회")
+    void successUseBalance_cached() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        given(accountCache.getAccountUser(anyLong()))
+                .willReturn(Optional.of(AccountUserMetadata.fromEntity(user)));
+        given(accountCache.getAccount(anyString()))
+                .willReturn(Optional.of(AccountMetadata.fromEntity(account)));
+        given(accountRepository.findById(anyLong()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willReturn(Transaction.builder()
+                        .account(account)
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transactionKey(1L)
+                        .transactedAt(LocalDateTime.now())
+                        .amount(1000L)
+                        .balanceSnapshot(9000L)
+                        .build());
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        transactionService.useBalance(12L, "1000000012", 1000L);
+
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(9000L, captor.getValue().getBalanceSnapshot());
+        verify(accountUserRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("캐시된 계좌 메타데이터로 소유주가 다르면 계좌를 읽지 않고 실패")
+    void failUseBalance_cachedOwnerUnMatch() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountCache.getAccountUser(anyLong()))
+                .willReturn(Optional.of(AccountUserMetadata.fromEntity(user)));
+        given(accountCache.getAccount(anyString()))
+                .willReturn(Optional.of(AccountMetadata.builder()
+                        .id(1L).accountNumber("1000000012").ownerId(13L)
+                        .accountStatus(IN_USE).build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(accountRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("일괄 잔액 사용 - 실패 항목은 실패 거래를 남기고 나머지는 처리")
+    void useBalanceBatch_partialFailure() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumberIn(anySet()))
+                .willReturn(List.of(account));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.nextId()).willReturn(1L, 2L, 3L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        List<TransactionDto> results = transactionService.useBalanceBatch(List.of(
+                new UseBalance.Request(12L, "1000000012", 6000L),
+                new UseBalance.Request(12L, "1000000012", 6000L),
+                new UseBalance.Request(12L, "1000000012", 4000L)));
+
+        //then
+        assertEquals(3, results.size());
+        assertEquals(S, results.get(0).getTransactionResultType());
+        assertEquals(F, results.get(1).getTransactionResultType());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(S, results.get(2).getTransactionResultType());
+        assertEquals(0L, results.get(2).getBalanceSnapshot());
+        verify(transactionRepository, times(3)).save(any());
+    }
+
+    @Test
+    void successTransferBalance() {
+        AccountUser pobi = AccountUser.builder()
+                .name("Pobi").build();
+        pobi.setId(12L);
+        AccountUser harry = AccountUser.builder()
+                .name("Harry").build();
+        harry.setId(13L);
+        Account from = Account.builder()
+                .accountUser(pobi)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .accountUser(harry)
+                .accountStatus(IN_USE)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(to));
+        given(transactionIdGenerator.nextId()).willReturn(1L, 2L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        TransferDto transferDto = transactionService.transferBalance(
+                12L, "1000000012", "1000000013", 1000L);
+
+        //then
+        verify(transactionRepository, times(2)).save(captor.capture());
+        Transaction withdrawal = captor.getAllValues().get(0);
+        Transaction deposit = captor.getAllValues().get(1);
+        assertEquals(TRANSFER_OUT, withdrawal.getTransactionType());
+        assertEquals(9000L, withdrawal.getBalanceSnapshot());
+        assertEquals(TRANSFER_IN, deposit.getTransactionType());
+        assertEquals(1500L, deposit.getBalanceSnapshot());
+        assertEquals(deposit.getTransactionKey(), withdrawal.getPairedTransactionKey());
+        assertEquals(withdrawal.getTransactionKey(), deposit.getPairedTransactionKey());
+        assertEquals(TransactionIds.format(1L), transferDto.getWithdrawal().getTransactionId());
+        assertEquals(TransactionIds.format(2L), transferDto.getDeposit().getTransactionId());
+    }
+
+    @Test
+    @DisplayName("같은 계좌로 이체 - 이체 실패")
+    void transferBalance_sameAccount() {
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(
+                        12L, "1000000012", "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.SAME_ACCOUNT_TRANSFER, exception.getErrorCode());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("샤드 계좌에서 이체 - 이체 실패")
+    void transferBalance_fromShardedAccount() {
+        AccountUser pobi = AccountUser.builder()
+                .name("Pobi").build();
+        pobi.setId(12L);
+        Account from = Account.builder()
+                .accountUser(pobi)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .shardCount(4)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .accountUser(pobi)
+                .accountStatus(IN_USE)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(to));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(
+                        12L, "1000000012", "1000000013", 1000L));
+
+        //then
+        assertEquals(ErrorCode.SHARDED_ACCOUNT_NOT_SUPPORTED, exception.getErrorCode());
+        assertEquals(10000L, from.getBalance());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("샤드 계좌 승인 - 승인 실패")
+    void authorizeBalance_shardedAccount() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .shardCount(4)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.authorizeBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.SHARDED_ACCOUNT_NOT_SUPPORTED, exception.getErrorCode());
+        verify(balanceHoldRepository, never()).save(any());
+    }
+
+    @Test
+    void successAuthorizeBalance() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.nextId()).willReturn(1L);
+        given(balanceHoldRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        BalanceHoldDto balanceHoldDto =
+                transactionService.authorizeBalance(12L, "1000000012", 1000L);
+
+        //then
+        assertEquals(9000L, account.getBalance());
+        assertEquals(HoldStatus.HELD, balanceHoldDto.getHoldStatus());
+        assertEquals(TransactionIds.format(1L), balanceHoldDto.getHoldId());
+        verify(eventPublisher, times(1)).publishEvent(any(BalanceHoldCreatedEvent.class));
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void successCaptureBalance() {
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+        BalanceHold balanceHold = heldBalanceHold(account);
+        given(balanceHoldRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(balanceHold));
+        given(balanceHoldRepository.settle(anyLong(), eq(HoldStatus.CAPTURED), any()))
+                .willReturn(1);
+        given(transactionIdGenerator.nextId()).willReturn(2L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        BalanceHoldDto balanceHoldDto =
+                transactionService.captureBalance("holdId", "1000000012");
+
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(USE, captor.getValue().getTransactionType());
+        assertEquals(1000L, captor.getValue().getAmount());
+        assertEquals(9000L, captor.getValue().getBalanceSnapshot());
+        assertEquals(9000L, account.getBalance());
+        assertEquals(HoldStatus.CAPTURED, balanceHoldDto.getHoldStatus());
+        assertEquals(TransactionIds.format(2L), balanceHoldDto.getTransactionId());
+    }
+
+    @Test
+    @DisplayName("이미 처리된 승인 건 - 매입 실패")
+    void captureBalance_alreadySettled() {
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+        BalanceHold balanceHold = heldBalanceHold(account);
+        given(balanceHoldRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(balanceHold));
+        // 만료 처리가 먼저 상태를 바꾼 경우
+        given(balanceHoldRepository.settle(anyLong(), eq(HoldStatus.CAPTURED), any()))
+                .willReturn(0);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureBalance("holdId", "1000000012"));
+
+        //then
+        assertEquals(ErrorCode.HOLD_ALREADY_SETTLED, exception.getErrorCode());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void successVoidBalance() {
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+        BalanceHold balanceHold = heldBalanceHold(account);
+        given(balanceHoldRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(balanceHold));
+        given(balanceHoldRepository.settle(anyLong(), eq(HoldStatus.VOIDED), any()))
+                .willReturn(1);
+
+        //when
+        BalanceHoldDto balanceHoldDto =
+                transactionService.voidBalance("holdId", "1000000012");
+
+        //then
+        assertEquals(10000L, account.getBalance());
+        assertEquals(HoldStatus.VOIDED, balanceHoldDto.getHoldStatus());
+    }
+
+    @Test
+    void expireBalanceHold_skipSettledHold() {
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+        BalanceHold balanceHold = heldBalanceHold(account);
+        balanceHold.setHoldStatus(HoldStatus.CAPTURED);
+        given(balanceHoldRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(balanceHold));
+
+        //when
+        transactionService.expireBalanceHold("holdId");
+
+        //then
+        assertEquals(9000L, account.getBalance());
+        verify(balanceHoldRepository, never()).settle(anyLong(), any(), any());
+    }
+
+    private static BalanceHold heldBalanceHold(Account account) {
+        BalanceHold balanceHold = BalanceHold.builder()
+                .account(account)
+                .amount(1000L)
+                .holdStatus(HoldStatus.HELD)
+                .holdKey(1L)
+                .expiresAt(LocalDateTime.now().plusMinutes(10))
+                .build();
+        balanceHold.setId(1L);
+        return balanceHold;
+    }
+
     @Test
     void successQueryTransaction() {
         AccountUser user = AccountUser.builder()
@@ -441,7 +838,7 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionKey(1L)
                 .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
                 .amount(200L)
                 .balanceSnapshot(9000L)
@@ -454,7 +851,7 @@ class TransactionServiceTest {
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(S, transactionDto.getTransactionResultType());
         assertEquals(200L, transactionDto.getAmount());
-        assertEquals("transactionId", transactionDto.getTransactionId());
+        assertEquals(TransactionIds.format(1L), transactionDto.getTransactionId());
     }
 
     @Test
@@ -470,4 +867,171 @@ class TransactionServiceTest {
         //then
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void successUseShardBalance() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = shardedAccount(user, 0L);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        AccountShard shard = AccountShard.builder()
+                .account(account).shardIndex(2).balance(5000L).build();
+        given(accountShardRepository.findByAccountIdAndShardIndex(1L, 2))
+                .willReturn(Optional.of(shard));
+        given(accountShardRepository.sumBalanceByAccountId(1L))
+                .willReturn(19000L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionDto transactionDto = transactionService.useShardBalance(
+                1L, "1000000012", 2, 1000L);
+
+        assertEquals(4000L, shard.getBalance());
+        assertEquals(0L, account.getBalance());
+        assertEquals(19000L, transactionDto.getBalanceSnapshot());
+        assertEquals(S, transactionDto.getTransactionResultType());
+    }
+
+    @Test
+    @DisplayName("샤드 잔액 부족 - 샤드 잔액 사용 실패")
+    void useShardBalance_amountExceedShardBalance() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = shardedAccount(user, 0L);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountShardRepository.findByAccountIdAndShardIndex(1L, 0))
+                .willReturn(Optional.of(AccountShard.builder()
+                        .account(account).shardIndex(0).balance(500L).build()));
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useShardBalance(1L, "1000000012", 0, 1000L));
+
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void useBalanceAcrossShards() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = shardedAccount(user, 0L);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        List<AccountShard> shards = List.of(
+                AccountShard.builder().account(account).shardIndex(0).balance(300L).build(),
+                AccountShard.builder().account(account).shardIndex(1).balance(500L).build(),
+                AccountShard.builder().account(account).shardIndex(2).balance(400L).build());
+        given(accountShardRepository.findByAccountIdOrderByShardIndex(1L))
+                .willReturn(shards);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.useBalanceAcrossShards(1L, "1000000012", 1000L);
+
+        assertEquals(0L, shards.get(0).getBalance());
+        assertEquals(0L, shards.get(1).getBalance());
+        assertEquals(200L, shards.get(2).getBalance());
+    }
+
+    @Test
+    void rebalanceShards() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = shardedAccount(user, 1001L);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        List<AccountShard> shards = List.of(
+                AccountShard.builder().account(account).shardIndex(0).balance(0L).build(),
+                AccountShard.builder().account(account).shardIndex(1).balance(2000L).build(),
+                AccountShard.builder().account(account).shardIndex(2).balance(0L).build());
+        given(accountShardRepository.findByAccountIdOrderByShardIndex(1L))
+                .willReturn(shards);
+
+        transactionService.rebalanceShards("1000000012");
+
+        assertEquals(0L, account.getBalance());
+        assertEquals(1001L, shards.get(0).getBalance());
+        assertEquals(1000L, shards.get(1).getBalance());
+        assertEquals(1000L, shards.get(2).getBalance());
+    }
+
+    @Test
+    void getTransactionHistory_firstPage() {
+        given(accountCache.getAccount("1000000012"))
+                .willReturn(Optional.of(AccountMetadata.builder()
+                        .id(7L).accountNumber("1000000012").build()));
+        LocalDateTime now = LocalDateTime.now();
+        given(transactionRepository.findHistory(7L, PageRequest.of(0, 3)))
+                .willReturn(List.of(historyItem(3L, now), historyItem(2L, now),
+                        historyItem(1L, now.minusSeconds(1))));
+
+        TransactionHistory.Response response =
+                transactionService.getTransactionHistory("1000000012", null, 2);
+
+        assertEquals(2, response.getTransactions().size());
+        assertEquals(2L, response.getTransactions().get(1).getId());
+        TransactionHistory.Cursor cursor =
+                TransactionHistory.Cursor.decode(response.getNextCursor());
+        assertEquals(now, cursor.getTransactedAt());
+        assertEquals(2L, cursor.getId());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    void getTransactionHistory_lastPage() {
+        given(accountCache.getAccount("1000000012"))
+                .willReturn(Optional.of(AccountMetadata.builder()
+                        .id(7L).accountNumber("1000000012").build()));
+        LocalDateTime transactedAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String cursor = new TransactionHistory.Cursor(transactedAt, 2L).encode();
+        given(transactionRepository.findHistoryBefore(
+                7L, transactedAt, 2L, PageRequest.of(0, 3)))
+                .willReturn(List.of(historyItem(1L, transactedAt)));
+
+        TransactionHistory.Response response =
+                transactionService.getTransactionHistory("1000000012", cursor, 2);
+
+        assertEquals(1, response.getTransactions().size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("잘못된 커서 - 거래 내역 조회 실패")
+    void getTransactionHistory_invalidCursor() {
+        given(accountCache.getAccount("1000000012"))
+                .willReturn(Optional.of(AccountMetadata.builder()
+                        .id(7L).accountNumber("1000000012").build()));
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000012", "!!", 2));
+
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    private static TransactionHistoryItem historyItem(Long id, LocalDateTime transactedAt) {
+        return new TransactionHistoryItem(id, id, USE, S, 1000L, 9000L, transactedAt);
+    }
+
+    private static Account shardedAccount(AccountUser user, Long balance) {
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .shardCount(3)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        return account;
+    }
+}